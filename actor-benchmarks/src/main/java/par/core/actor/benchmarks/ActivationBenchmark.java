@@ -0,0 +1,95 @@
+package par.core.actor.benchmarks;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import par.core.actor.base.ActorMessage;
+import par.core.actor.base.ActorPriority;
+import par.core.actor.base.Topic;
+import par.core.actor.base.node.Actor;
+import par.core.actor.base.node.ActorCluster;
+import par.core.actor.base.node.configs.ActorConfig;
+import par.core.actor.base.node.configs.ClusterConfig;
+import par.core.actor.divisionstrategies.NoDivision;
+import par.core.actor.factories.ExecutorFactory.ThreadPoolTypes;
+
+/**
+ * Round trip of a single message to an idle actor: the send activates the
+ * node through {@code executeNode}, the pool runs it and the message is
+ * operated. Measures the scheduling latency of each pool type.
+ *
+ * <pre>
+ * java -jar target/benchmarks.jar ActivationBenchmark
+ * </pre>
+ *
+ * @author osman.yasal
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ActivationBenchmark {
+
+	@Param({ "FIXED_SIZED", "CACHED_SIZED", "PRIORITIZED", "VIRTUAL", "FORK_JOIN" })
+	private ThreadPoolTypes poolType;
+
+	private ActorCluster cluster;
+	private ProbeActor probe;
+
+	private static final class ProbeActor extends Actor<CountDownLatch> {
+		private ProbeActor(ActorConfig<CountDownLatch> config) {
+			super(config);
+		}
+
+		@Override
+		public void operate(ActorMessage<CountDownLatch> msg) {
+			msg.getMessage().countDown();
+		}
+
+		@Override
+		public Actor<CountDownLatch> generateChildActor() {
+			return null;
+		}
+	}
+
+	@Setup(Level.Trial)
+	public void setup() {
+		cluster = new ActorCluster(new ClusterConfig(poolType, false));
+		probe = new ProbeActor(new ActorConfig<>(new Topic("probe"), cluster.getRouter(), new NoDivision<>(),
+				ActorPriority.DEFAULT, null));
+		cluster.addRootActor(probe);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		cluster.terminateCluster(true, false);
+		Thread.interrupted();
+	}
+
+	@Benchmark
+	public void activate() throws Exception {
+		// the previous activation must be over, otherwise the node is still ACTIVE
+		// and the send wouldn't go through executeNode.
+		cluster.waitForTermination("probe", false);
+		CountDownLatch latch = new CountDownLatch(1);
+		probe.sendByLocking(new ActorMessage<>(latch));
+		latch.await();
+	}
+}
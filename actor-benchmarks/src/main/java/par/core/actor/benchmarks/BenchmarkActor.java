@@ -0,0 +1,63 @@
+package par.core.actor.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.infra.Blackhole;
+
+import par.core.actor.base.ActorMessage;
+import par.core.actor.base.node.Actor;
+import par.core.actor.base.node.configs.ActorConfig;
+
+/**
+ * Actor that simulates a configurable amount of work per message.
+ * 
+ * @author osman.yasal
+ *
+ */
+public class BenchmarkActor extends Actor<Integer> {
+
+	public enum Workload {
+		// returns immediately, measures the runtime overhead only.
+		NONE,
+		// burns cpu cycles without blocking the thread.
+		CPU,
+		// blocks the thread like a jdbc call or a file read.
+		BLOCKING
+	}
+
+	private static final long CPU_TOKENS = 1_000;
+	private static final long BLOCKING_MICROS = 200;
+
+	private final ActorConfig<Integer> actorConfig;
+	private final Workload workload;
+
+	public BenchmarkActor(ActorConfig<Integer> config, Workload workload) {
+		super(config);
+		this.actorConfig = config;
+		this.workload = workload;
+	}
+
+	@Override
+	public void operate(ActorMessage<Integer> msg) {
+		switch (workload) {
+		case CPU:
+			Blackhole.consumeCPU(CPU_TOKENS);
+			break;
+		case BLOCKING:
+			try {
+				TimeUnit.MICROSECONDS.sleep(BLOCKING_MICROS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			break;
+		case NONE:
+		default:
+			break;
+		}
+	}
+
+	@Override
+	public Actor<Integer> generateChildActor() {
+		return new BenchmarkActor(actorConfig, workload);
+	}
+}
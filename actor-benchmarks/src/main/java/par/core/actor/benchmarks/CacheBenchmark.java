@@ -0,0 +1,90 @@
+package par.core.actor.benchmarks;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import par.core.actor.base.node.configs.CacheConfig;
+import par.core.actor.cache.DelayedCache;
+
+/**
+ * {@code DelayedCache} under contention, readers and writers share a key
+ * space of {@code keyCount} keys. Every add also feeds the cleaner's delay
+ * queue, so a short expiry measures the cleaner's interference as well. A
+ * positive {@code maximumSize} adds the eviction policy to every access.
+ *
+ * <pre>
+ * java -jar target/benchmarks.jar CacheBenchmark
+ * </pre>
+ *
+ * @author osman.yasal
+ *
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CacheBenchmark {
+
+	@Param({ "1024", "65536" })
+	private int keyCount;
+
+	@Param({ "10", "10000" })
+	private long expiryMillis;
+
+	@Param({ "0", "512" })
+	private long maximumSize;
+
+	private DelayedCache cache;
+	private String[] keys;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		cache = new DelayedCache(new CacheConfig().setMaximumSize(maximumSize));
+		keys = new String[keyCount];
+		for (int i = 0; i < keyCount; i++) {
+			keys[i] = "key-" + i;
+			cache.add(keys[i], i, expiryMillis, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		cache.terminate();
+	}
+
+	private String randomKey() {
+		return keys[ThreadLocalRandom.current().nextInt(keyCount)];
+	}
+
+	@Benchmark
+	@Group("readMostly")
+	@GroupThreads(6)
+	public Object get() {
+		return cache.get(randomKey());
+	}
+
+	@Benchmark
+	@Group("readMostly")
+	@GroupThreads(2)
+	public void add() {
+		cache.add(randomKey(), Boolean.TRUE, expiryMillis, TimeUnit.MILLISECONDS);
+	}
+}
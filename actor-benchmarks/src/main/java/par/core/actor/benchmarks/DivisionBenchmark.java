@@ -0,0 +1,131 @@
+package par.core.actor.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import par.core.actor.base.ActorMessage;
+import par.core.actor.base.ActorPriority;
+import par.core.actor.base.Topic;
+import par.core.actor.base.node.ActorCluster;
+import par.core.actor.base.node.configs.ActorConfig;
+import par.core.actor.base.node.configs.ClusterConfig;
+import par.core.actor.divisionstrategies.AutoDivision;
+import par.core.actor.divisionstrategies.DivisionStrategy;
+import par.core.actor.divisionstrategies.NumberBasedDivison;
+import par.core.actor.factories.ExecutorFactory.ThreadPoolTypes;
+
+/**
+ * Time to drain a time-varying load with {@code AutoDivision} and fixed
+ * {@code NumberBasedDivison} thresholds. Each invocation replays one load
+ * profile against a fresh cluster and waits until the topic is idle, so a
+ * lower score means less backlog was left behind.
+ * <ul>
+ * <li>STEP : a low rate for the first half, then ten times of it.</li>
+ * <li>RAMP : the rate grows linearly from zero to the peak.</li>
+ * </ul>
+ *
+ * <pre>
+ * java -jar target/benchmarks.jar DivisionBenchmark
+ * </pre>
+ *
+ * @author osman.yasal
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DivisionBenchmark {
+
+	public enum Strategy {
+		AUTO, FIXED_10, FIXED_100, FIXED_1000
+	}
+
+	public enum LoadProfile {
+		STEP, RAMP
+	}
+
+	private static final int SLOT_COUNT = 20;
+	private static final long SLOT_MILLIS = 50;
+	// messages per slot at the peak, ~10 nodes are needed with the BLOCKING load.
+	private static final int PEAK_MESSAGES = 2_500;
+
+	@Param({ "AUTO", "FIXED_10", "FIXED_100", "FIXED_1000" })
+	private Strategy strategy;
+
+	@Param({ "STEP", "RAMP" })
+	private LoadProfile profile;
+
+	private ActorCluster cluster;
+	private BenchmarkActor actor;
+
+	@Setup(Level.Invocation)
+	public void setup() {
+		cluster = new ActorCluster(new ClusterConfig(ThreadPoolTypes.CACHED_SIZED, false));
+		ActorConfig<Integer> config = new ActorConfig<>(new Topic("divided"), cluster.getRouter(),
+				createStrategy(), ActorPriority.DEFAULT, null);
+		actor = new BenchmarkActor(config, BenchmarkActor.Workload.BLOCKING);
+		cluster.addRootActor(actor);
+	}
+
+	@TearDown(Level.Invocation)
+	public void tearDown() {
+		cluster.terminateCluster(true, false);
+		// terminateActor interrupts the calling thread.
+		Thread.interrupted();
+	}
+
+	private DivisionStrategy<Integer> createStrategy() {
+		switch (strategy) {
+		case FIXED_10:
+			return new NumberBasedDivison<>(10L);
+		case FIXED_100:
+			return new NumberBasedDivison<>(100L);
+		case FIXED_1000:
+			return new NumberBasedDivison<>(1000L);
+		case AUTO:
+		default:
+			return new AutoDivision<>();
+		}
+	}
+
+	private int messagesOf(int slot) {
+		switch (profile) {
+		case STEP:
+			return slot < SLOT_COUNT / 2 ? PEAK_MESSAGES / 10 : PEAK_MESSAGES;
+		case RAMP:
+		default:
+			return PEAK_MESSAGES * (slot + 1) / SLOT_COUNT;
+		}
+	}
+
+	@Benchmark
+	public void drain() throws Exception {
+		ActorMessage<Integer> message = new ActorMessage<>(1);
+		long slotNanos = TimeUnit.MILLISECONDS.toNanos(SLOT_MILLIS);
+		long next = System.nanoTime();
+		for (int slot = 0; slot < SLOT_COUNT; slot++) {
+			for (int i = messagesOf(slot); i > 0; i--)
+				actor.sendByLocking(message);
+			next += slotNanos;
+			LockSupport.parkNanos(next - System.nanoTime());
+		}
+		cluster.waitForTermination("divided", false);
+	}
+}
@@ -0,0 +1,93 @@
+package par.core.actor.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import par.core.actor.base.ActorMessage;
+import par.core.actor.base.ActorPriority;
+import par.core.actor.base.Topic;
+import par.core.actor.base.node.ActorCluster;
+import par.core.actor.base.node.configs.ActorConfig;
+import par.core.actor.base.node.configs.ClusterConfig;
+import par.core.actor.benchmarks.BenchmarkActor.Workload;
+import par.core.actor.divisionstrategies.NoDivision;
+import par.core.actor.factories.ExecutorFactory.ThreadPoolTypes;
+
+/**
+ * Time to process a fixed amount of messages spread over many actors with
+ * blocking and cpu-bound operate() implementations.
+ * 
+ * <pre>
+ * java -jar target/benchmarks.jar ExecutorBenchmark
+ * </pre>
+ * 
+ * @author osman.yasal
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExecutorBenchmark {
+
+	@Param({ "FIXED_SIZED", "CACHED_SIZED", "VIRTUAL", "FORK_JOIN" })
+	private ThreadPoolTypes poolType;
+
+	@Param({ "CPU", "BLOCKING" })
+	private Workload workload;
+
+	@Param({ "64" })
+	private int actorCount;
+
+	@Param({ "50" })
+	private int messagesPerActor;
+
+	private ActorCluster cluster;
+	private List<BenchmarkActor> actors;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		cluster = new ActorCluster(new ClusterConfig(poolType, false));
+		actors = new ArrayList<>();
+		for (int i = 0; i < actorCount; i++) {
+			ActorConfig<Integer> config = new ActorConfig<>(new Topic("topic-" + i), cluster.getRouter(),
+					new NoDivision<>(), ActorPriority.DEFAULT, null);
+			BenchmarkActor actor = new BenchmarkActor(config, workload);
+			cluster.addRootActor(actor);
+			actors.add(actor);
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		cluster.terminateCluster(true, false);
+	}
+
+	@Benchmark
+	public void processAll() throws Exception {
+		for (BenchmarkActor actor : actors) {
+			List<ActorMessage<Integer>> messageList = new ArrayList<>(messagesPerActor);
+			for (int i = 0; i < messagesPerActor; i++)
+				messageList.add(new ActorMessage<>(i));
+			actor.sendAll(messageList);
+		}
+		cluster.waitForTermination(false);
+	}
+}
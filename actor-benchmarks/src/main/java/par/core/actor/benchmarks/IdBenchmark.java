@@ -0,0 +1,72 @@
+package par.core.actor.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import par.core.actor.base.ActorMessage;
+import par.core.actor.factories.IdGeneratorFactory;
+import par.core.actor.factories.IdGeneratorFactory.IdGeneratorTypes;
+import par.core.actor.ids.IdGenerator;
+
+/**
+ * Cost of creating a message and assigning its id the way
+ * {@code Actor.sendByLocking} does. Run with the GC profiler to compare the
+ * allocation rates ({@code gc.alloc.rate.norm}).
+ *
+ * <pre>
+ * java -jar target/benchmarks.jar IdBenchmark -prof gc
+ * </pre>
+ *
+ * @author osman.yasal
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class IdBenchmark {
+
+	@Param({ "UUID", "SEQUENCE", "LAZY" })
+	private IdGeneratorTypes idGeneratorType;
+
+	private IdGenerator idGenerator;
+	private Integer payload;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		idGenerator = IdGeneratorFactory.getIdGenerator(idGeneratorType);
+		payload = 1;
+	}
+
+	@Benchmark
+	public ActorMessage<Integer> createMessage() {
+		ActorMessage<Integer> message = new ActorMessage<>(payload);
+		idGenerator.assign(message);
+		return message;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(IdBenchmark.class.getSimpleName()).addProfiler(GCProfiler.class)
+				.build()).run();
+	}
+}
@@ -0,0 +1,92 @@
+package par.core.actor.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import par.core.actor.base.ActorMessage;
+import par.core.actor.base.ActorPriority;
+import par.core.actor.base.Topic;
+import par.core.actor.base.node.ActorCluster;
+import par.core.actor.base.node.configs.ActorConfig;
+import par.core.actor.base.node.configs.ClusterConfig;
+import par.core.actor.divisionstrategies.NoDivision;
+import par.core.actor.factories.ExecutorFactory.ThreadPoolTypes;
+import par.core.actor.journal.JournalSyncMode;
+import par.core.actor.serializers.GsonMessageCodec;
+
+/**
+ * Send throughput of a journaled topic with concurrent senders.<br>
+ * PER_MESSAGE pays one fsync per message, GROUP_COMMIT shares a single fsync
+ * between the senders that arrive while the previous one is running, OFF is the
+ * in-memory baseline.
+ *
+ * <pre>
+ * java -jar target/benchmarks.jar JournalBenchmark
+ * </pre>
+ *
+ * @author osman.yasal
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class JournalBenchmark {
+
+	// senders block above this size so the heap doesn't blow up.
+	private static final int CAPACITY = 1 << 16;
+
+	@Param({ "OFF", "PER_MESSAGE", "GROUP_COMMIT" })
+	private JournalSyncMode syncMode;
+
+	private Path directory;
+	private ActorCluster cluster;
+	private BenchmarkActor actor;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		directory = Files.createTempDirectory("journal-benchmark");
+		cluster = new ActorCluster(new ClusterConfig(ThreadPoolTypes.FIXED_SIZED, false)
+				.setJournalDirectory(directory.toString()));
+		ActorConfig<Integer> config = new ActorConfig<Integer>(new Topic("journaled"), cluster.getRouter(),
+				new NoDivision<>(), ActorPriority.DEFAULT, null).setCapacity(CAPACITY).setJournalSyncMode(syncMode)
+				.setMessageCodec(new GsonMessageCodec<>(Integer.class));
+		actor = new BenchmarkActor(config, BenchmarkActor.Workload.NONE);
+		cluster.addRootActor(actor);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		cluster.terminateCluster(true, false);
+		try (Stream<Path> stream = Files.walk(directory)) {
+			stream.sorted(Comparator.reverseOrder()).forEach(x -> x.toFile().delete());
+		}
+	}
+
+	@Benchmark
+	public void send() {
+		actor.sendByLocking(new ActorMessage<>(1));
+	}
+}
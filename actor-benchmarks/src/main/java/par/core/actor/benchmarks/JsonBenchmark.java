@@ -0,0 +1,82 @@
+package par.core.actor.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import par.core.actor.base.ActorPriority;
+import par.core.actor.base.Topic;
+import par.core.actor.base.node.ActorCluster;
+import par.core.actor.base.node.configs.ActorConfig;
+import par.core.actor.base.node.configs.ClusterConfig;
+import par.core.actor.benchmarks.BenchmarkActor.Workload;
+import par.core.actor.divisionstrategies.NoDivision;
+import par.core.actor.factories.ExecutorFactory.ThreadPoolTypes;
+
+/**
+ * Cost of {@code toJson} for a single actor and for a whole cluster, both
+ * build their Gson instances on every call.
+ *
+ * <pre>
+ * java -jar target/benchmarks.jar JsonBenchmark
+ * </pre>
+ *
+ * @author osman.yasal
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonBenchmark {
+
+	@Param({ "FIXED_SIZED", "CACHED_SIZED", "PRIORITIZED", "VIRTUAL", "FORK_JOIN" })
+	private ThreadPoolTypes poolType;
+
+	@Param({ "16" })
+	private int topicCount;
+
+	private ActorCluster cluster;
+	private BenchmarkActor actor;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		cluster = new ActorCluster(new ClusterConfig(poolType, false));
+		for (int i = 0; i < topicCount; i++) {
+			ActorConfig<Integer> config = new ActorConfig<>(new Topic("topic-" + i), cluster.getRouter(),
+					new NoDivision<>(), ActorPriority.DEFAULT, null);
+			actor = new BenchmarkActor(config, Workload.NONE);
+			cluster.addRootActor(actor);
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		cluster.terminateCluster(true, false);
+		Thread.interrupted();
+	}
+
+	@Benchmark
+	public String actorToJson() {
+		return actor.toJson();
+	}
+
+	@Benchmark
+	public String clusterToJson() {
+		return cluster.toJson();
+	}
+}
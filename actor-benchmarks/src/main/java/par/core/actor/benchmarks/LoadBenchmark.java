@@ -0,0 +1,129 @@
+package par.core.actor.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import par.core.actor.base.ActorMessage;
+import par.core.actor.base.ActorPriority;
+import par.core.actor.base.Topic;
+import par.core.actor.base.node.ActorCluster;
+import par.core.actor.base.node.configs.ActorConfig;
+import par.core.actor.base.node.configs.ClusterConfig;
+import par.core.actor.benchmarks.BenchmarkActor.Workload;
+import par.core.actor.divisionstrategies.AutoDivision;
+import par.core.actor.divisionstrategies.DivisionStrategy;
+import par.core.actor.divisionstrategies.KeyPartitionedDivision;
+import par.core.actor.divisionstrategies.LatencyBasedDivision;
+import par.core.actor.divisionstrategies.NoDivision;
+import par.core.actor.divisionstrategies.NumberBasedDivison;
+import par.core.actor.divisionstrategies.PooledDivision;
+import par.core.actor.factories.ExecutorFactory.ThreadPoolTypes;
+
+/**
+ * Cost of {@code load} and {@code loadAll} per message with each division
+ * strategy. The loaded messages are processed after every invocation, outside
+ * of the measurement, so each invocation starts with an idle topic.
+ *
+ * <pre>
+ * java -jar target/benchmarks.jar LoadBenchmark
+ * </pre>
+ *
+ * @author osman.yasal
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoadBenchmark {
+
+	public enum Strategy {
+		NO, NUMBER_BASED, AUTO, POOLED, LATENCY_BASED, KEY_PARTITIONED
+	}
+
+	private static final int MESSAGE_COUNT = 10_000;
+	private static final long QUEUE_LIMIT = 1_000L;
+
+	@Param({ "NO", "NUMBER_BASED", "AUTO", "POOLED", "LATENCY_BASED", "KEY_PARTITIONED" })
+	private Strategy strategy;
+
+	@Param({ "FIXED_SIZED", "CACHED_SIZED", "PRIORITIZED", "VIRTUAL", "FORK_JOIN" })
+	private ThreadPoolTypes poolType;
+
+	private ActorCluster cluster;
+	private BenchmarkActor actor;
+	private List<ActorMessage<Integer>> messageList;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		cluster = new ActorCluster(new ClusterConfig(poolType, false));
+		ActorConfig<Integer> config = new ActorConfig<>(new Topic("loaded"), cluster.getRouter(), createStrategy(),
+				ActorPriority.DEFAULT, null);
+		actor = new BenchmarkActor(config, Workload.NONE);
+		cluster.addRootActor(actor);
+		messageList = new ArrayList<>(MESSAGE_COUNT);
+		for (int i = 0; i < MESSAGE_COUNT; i++)
+			messageList.add(new ActorMessage<>(i));
+	}
+
+	@TearDown(Level.Invocation)
+	public void drain() throws Exception {
+		actor.executeNodeStack();
+		cluster.waitForTermination("loaded", false);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		cluster.terminateCluster(true, false);
+		Thread.interrupted();
+	}
+
+	private DivisionStrategy<Integer> createStrategy() {
+		switch (strategy) {
+		case NUMBER_BASED:
+			return new NumberBasedDivison<>(QUEUE_LIMIT);
+		case AUTO:
+			return new AutoDivision<>();
+		case POOLED:
+			return new PooledDivision<>(PooledDivision.Routing.POWER_OF_TWO_CHOICES, 8, QUEUE_LIMIT);
+		case LATENCY_BASED:
+			return new LatencyBasedDivision<>(10);
+		case KEY_PARTITIONED:
+			return new KeyPartitionedDivision<>(x -> x, 8);
+		case NO:
+		default:
+			return new NoDivision<>();
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(MESSAGE_COUNT)
+	public void load() {
+		for (ActorMessage<Integer> message : messageList)
+			actor.load(message);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(MESSAGE_COUNT)
+	public void loadAll() {
+		actor.loadAll(messageList);
+	}
+}
@@ -0,0 +1,96 @@
+package par.core.actor.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import par.core.actor.base.ActorMessage;
+import par.core.actor.factories.MailboxFactory;
+import par.core.actor.factories.MailboxFactory.MailboxTypes;
+import par.core.actor.mailbox.Mailbox;
+
+/**
+ * Fan-in comparison of the mailbox types. Producers go through the same
+ * locking rule that {@code Actor.sendByLocking} uses: the fair queue lock is
+ * only taken for mailboxes that are not concurrent.
+ *
+ * <pre>
+ * java -jar target/benchmarks.jar MailboxBenchmark
+ * </pre>
+ *
+ * @author osman.yasal
+ *
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MailboxBenchmark {
+
+	// producers back off above this size so the heap doesn't blow up when the
+	// consumer can't keep up.
+	private static final int MAX_BACKLOG = 1 << 16;
+
+	@Param({ "LINKED", "MPSC" })
+	private MailboxTypes mailboxType;
+
+	private Mailbox<Integer> mailbox;
+	private Lock queueLock;
+	private ActorMessage<Integer> message;
+
+	@Setup(Level.Iteration)
+	public void setup() {
+		mailbox = MailboxFactory.getMailbox(mailboxType);
+		queueLock = new ReentrantLock(true);
+		message = new ActorMessage<>(1);
+	}
+
+	@Benchmark
+	@Group("fanIn")
+	@GroupThreads(4)
+	public void send() {
+		while (mailbox.size() > MAX_BACKLOG)
+			Thread.onSpinWait();
+		if (mailbox.isConcurrent()) {
+			mailbox.offer(message);
+			return;
+		}
+		queueLock.lock();
+		try {
+			mailbox.offer(message);
+		} finally {
+			queueLock.unlock();
+		}
+	}
+
+	@Benchmark
+	@Group("fanIn")
+	@GroupThreads(1)
+	public ActorMessage<Integer> deq() {
+		if (mailbox.isConcurrent())
+			return mailbox.poll();
+		queueLock.lock();
+		try {
+			return mailbox.poll();
+		} finally {
+			queueLock.unlock();
+		}
+	}
+}
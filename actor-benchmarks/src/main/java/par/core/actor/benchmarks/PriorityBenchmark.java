@@ -0,0 +1,130 @@
+package par.core.actor.benchmarks;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import par.core.actor.base.ActorMessage;
+import par.core.actor.base.ActorPriority;
+import par.core.actor.base.Topic;
+import par.core.actor.base.node.Actor;
+import par.core.actor.base.node.ActorCluster;
+import par.core.actor.base.node.configs.ActorConfig;
+import par.core.actor.base.node.configs.ClusterConfig;
+import par.core.actor.divisionstrategies.NoDivision;
+import par.core.actor.factories.ExecutorFactory.ThreadPoolTypes;
+
+/**
+ * Activation latency of a probe topic while the pool is saturated by LOW
+ * priority topics that re-schedule themselves after every message.<br>
+ * With the PRIORITIZED pool a MAX probe should jump ahead of the backlog,
+ * while a DEFAULT probe waits until aging lifts it over the LOW tasks.
+ *
+ * <pre>
+ * java -jar target/benchmarks.jar PriorityBenchmark
+ * </pre>
+ *
+ * @author osman.yasal
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PriorityBenchmark {
+
+	private static final int THREAD_COUNT = 2;
+	private static final long LOAD_TOKENS = 5_000;
+
+	@Param({ "PRIORITIZED", "FIXED_SIZED" })
+	private ThreadPoolTypes poolType;
+
+	@Param({ "MAX", "DEFAULT" })
+	private ActorPriority probePriority;
+
+	@Param({ "32" })
+	private int loadActorCount;
+
+	private ActorCluster cluster;
+	private ProbeActor probe;
+
+	/**
+	 * Sends itself a new message on every message, so there is always a LOW
+	 * priority task waiting in the pool.
+	 */
+	private static final class LoadActor extends Actor<Integer> {
+		private LoadActor(ActorConfig<Integer> config) {
+			super(config);
+		}
+
+		@Override
+		public void operate(ActorMessage<Integer> msg) {
+			Blackhole.consumeCPU(LOAD_TOKENS);
+			sendByLocking(msg);
+		}
+
+		@Override
+		public Actor<Integer> generateChildActor() {
+			return null;
+		}
+	}
+
+	private static final class ProbeActor extends Actor<CountDownLatch> {
+		private ProbeActor(ActorConfig<CountDownLatch> config) {
+			super(config);
+		}
+
+		@Override
+		public void operate(ActorMessage<CountDownLatch> msg) {
+			msg.getMessage().countDown();
+		}
+
+		@Override
+		public Actor<CountDownLatch> generateChildActor() {
+			return null;
+		}
+	}
+
+	@Setup(Level.Trial)
+	public void setup() {
+		cluster = new ActorCluster(new ClusterConfig(poolType, false).setThreadCount(THREAD_COUNT));
+		for (int i = 0; i < loadActorCount; i++) {
+			ActorConfig<Integer> config = new ActorConfig<Integer>(new Topic("load-" + i), cluster.getRouter(),
+					new NoDivision<>(), ActorPriority.LOW, null).setThroughput(1);
+			LoadActor actor = new LoadActor(config);
+			cluster.addRootActor(actor);
+			actor.sendByLocking(new ActorMessage<>(i));
+		}
+		probe = new ProbeActor(new ActorConfig<>(new Topic("probe"), cluster.getRouter(), new NoDivision<>(),
+				probePriority, null));
+		cluster.addRootActor(probe);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		cluster.terminateCluster(true, false);
+	}
+
+	@Benchmark
+	public void activationLatency() throws InterruptedException {
+		CountDownLatch latch = new CountDownLatch(1);
+		probe.sendByLocking(new ActorMessage<>(latch));
+		latch.await();
+	}
+}
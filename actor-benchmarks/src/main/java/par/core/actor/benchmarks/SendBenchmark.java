@@ -0,0 +1,107 @@
+package par.core.actor.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import par.core.actor.base.ActorMessage;
+import par.core.actor.base.ActorPriority;
+import par.core.actor.base.Topic;
+import par.core.actor.base.node.ActorCluster;
+import par.core.actor.base.node.configs.ActorConfig;
+import par.core.actor.base.node.configs.ClusterConfig;
+import par.core.actor.benchmarks.BenchmarkActor.Workload;
+import par.core.actor.divisionstrategies.NoDivision;
+import par.core.actor.factories.ExecutorFactory.ThreadPoolTypes;
+import par.core.actor.factories.MailboxFactory.MailboxTypes;
+
+/**
+ * Fan-in throughput of {@code sendByLocking} and {@code sendAllByLocking}, four
+ * producer threads send to a single actor that is executed by the pool type.
+ *
+ * <pre>
+ * java -jar target/benchmarks.jar SendBenchmark
+ * </pre>
+ *
+ * @author osman.yasal
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class SendBenchmark {
+
+	// producers back off above this size so the heap doesn't blow up when the
+	// consumer can't keep up.
+	private static final int MAX_BACKLOG = 1 << 16;
+	private static final int BATCH_SIZE = 16;
+
+	@Param({ "FIXED_SIZED", "CACHED_SIZED", "PRIORITIZED", "VIRTUAL", "FORK_JOIN" })
+	private ThreadPoolTypes poolType;
+
+	@Param({ "LINKED", "MPSC" })
+	private MailboxTypes mailboxType;
+
+	private ActorCluster cluster;
+	private BenchmarkActor actor;
+	private ActorMessage<Integer> message;
+	private List<ActorMessage<Integer>> messageList;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		cluster = new ActorCluster(new ClusterConfig(poolType, false));
+		ActorConfig<Integer> config = new ActorConfig<Integer>(new Topic("fan-in"), cluster.getRouter(),
+				new NoDivision<>(), ActorPriority.DEFAULT, null).setMailboxType(mailboxType);
+		actor = new BenchmarkActor(config, Workload.NONE);
+		cluster.addRootActor(actor);
+		message = new ActorMessage<>(1);
+		messageList = new ArrayList<>();
+		for (int i = 0; i < BATCH_SIZE; i++)
+			messageList.add(new ActorMessage<>(i));
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		cluster.terminateCluster(true, false);
+		Thread.interrupted();
+	}
+
+	private void backOff() {
+		while (actor.getQueueSize() > MAX_BACKLOG)
+			Thread.onSpinWait();
+	}
+
+	@Benchmark
+	public void sendByLocking() {
+		backOff();
+		actor.sendByLocking(message);
+	}
+
+	/**
+	 * Scored per call, a call sends {@code BATCH_SIZE} messages.
+	 */
+	@Benchmark
+	public void sendAllByLocking() {
+		backOff();
+		actor.sendAllByLocking(messageList);
+	}
+}
@@ -0,0 +1,54 @@
+package par.core.actor.benchmarks;
+
+import org.openjdk.jmh.infra.Blackhole;
+
+import par.core.actor.base.ActorMessage;
+import par.core.actor.base.node.Actor;
+import par.core.actor.base.node.configs.ActorConfig;
+import par.core.actor.benchmarks.SoakTest.SoakMessage;
+import par.core.actor.metrics.LatencyHistogram;
+
+/**
+ * Actor of the soak test, burns {@code cpuTokens} per message, reads the
+ * payload and records the end-to-end latency of the message twice: from the
+ * time the message was scheduled to be sent and from the time it was actually
+ * sent.
+ * 
+ * @author osman.yasal
+ *
+ */
+public class SoakActor extends Actor<SoakMessage> {
+
+	private final ActorConfig<SoakMessage> actorConfig;
+	private final long cpuTokens;
+	private final LatencyHistogram correctedLatency;
+	private final LatencyHistogram sendLatency;
+	// keeps the payload reads alive.
+	private int checksum;
+
+	public SoakActor(ActorConfig<SoakMessage> config, long cpuTokens, LatencyHistogram correctedLatency,
+			LatencyHistogram sendLatency) {
+		super(config);
+		this.actorConfig = config;
+		this.cpuTokens = cpuTokens;
+		this.correctedLatency = correctedLatency;
+		this.sendLatency = sendLatency;
+	}
+
+	@Override
+	public void operate(ActorMessage<SoakMessage> msg) {
+		SoakMessage message = msg.getMessage();
+		if (cpuTokens > 0)
+			Blackhole.consumeCPU(cpuTokens);
+		for (byte b : message.getPayload())
+			checksum += b;
+		long now = System.nanoTime();
+		correctedLatency.record(now - message.getIntendedNanos());
+		sendLatency.record(now - message.getSentNanos());
+	}
+
+	@Override
+	public Actor<SoakMessage> generateChildActor() {
+		return new SoakActor(actorConfig, cpuTokens, correctedLatency, sendLatency);
+	}
+}
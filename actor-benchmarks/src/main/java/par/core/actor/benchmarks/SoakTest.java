@@ -0,0 +1,271 @@
+package par.core.actor.benchmarks;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import par.core.actor.base.ActorMessage;
+import par.core.actor.base.ActorPriority;
+import par.core.actor.base.Topic;
+import par.core.actor.base.node.ActorCluster;
+import par.core.actor.base.node.configs.ActorConfig;
+import par.core.actor.base.node.configs.ClusterConfig;
+import par.core.actor.divisionstrategies.DivisionStrategy;
+import par.core.actor.divisionstrategies.NoDivision;
+import par.core.actor.divisionstrategies.NumberBasedDivison;
+import par.core.actor.exceptions.MailboxOverflowException;
+import par.core.actor.factories.ExecutorFactory.ThreadPoolTypes;
+import par.core.actor.metrics.HistogramSnapshot;
+import par.core.actor.metrics.LatencyHistogram;
+import par.core.actor.metrics.MetricsSnapshot;
+
+/**
+ * Long running load generator that drives a cluster at a fixed schedule and
+ * reports the throughput, the end-to-end latency percentiles, the node count
+ * and the heap usage after GC at every report interval.<br>
+ * Every message has an intended send time derived from the arrival pattern
+ * and the latency is measured from that time, not from the time the producer
+ * actually got to send it. A producer that is held up by a slow send doesn't
+ * thin out the samples of the stall (coordinated omission), it sends the
+ * overdue messages back to back and they carry the delay. The uncorrected
+ * latency is reported next to it for comparison.<br>
+ * A heap that keeps growing after GC or a node count that doesn't go down
+ * after bursts point to a leak.
+ *
+ * <pre>
+ * java -Dsoak.rate=50000 -Dsoak.pattern=BURSTY -Dsoak.seconds=14400 \
+ *      -cp target/benchmarks.jar par.core.actor.benchmarks.SoakTest
+ * </pre>
+ *
+ * Options, all system properties:
+ * <ul>
+ * <li>soak.producers: producer threads, default 4</li>
+ * <li>soak.rate: messages per second of all producers, default 10000</li>
+ * <li>soak.pattern: CONSTANT, BURSTY or RAMP, default CONSTANT</li>
+ * <li>soak.messageBytes: payload size, default 256</li>
+ * <li>soak.cpuTokens: cost of operate in {@code Blackhole} tokens, default
+ * 1000</li>
+ * <li>soak.seconds: duration, default 3600</li>
+ * <li>soak.reportSeconds: report interval, default 10</li>
+ * <li>soak.poolType: {@code ThreadPoolTypes} of the cluster, default
+ * FIXED_SIZED</li>
+ * <li>soak.queueLimit: divides by {@code NumberBasedDivison} with this limit
+ * if positive, default 0</li>
+ * <li>soak.idleRetirementMillis: idle retirement of the children, default
+ * 0</li>
+ * </ul>
+ *
+ * @author osman.yasal
+ *
+ */
+public final class SoakTest {
+
+	private static final String TOPIC = "soak";
+	private static final String LINE = "%8ds %12.0f msg/s sent %12.0f msg/s done %8d rejected | corrected p50 %10.1f p99 %10.1f p999 %10.1f max %10.1f us | uncorrected p99 %10.1f us | nodes %4d queue %8d | heap %8.1f MB after gc %8.1f MB";
+
+	public enum ArrivalPattern {
+		// evenly spaced messages.
+		CONSTANT,
+		// the messages of every second are sent in its first 100ms.
+		BURSTY,
+		// the rate climbs from 10% to 100% during the first half of the run.
+		RAMP;
+
+		private static final long BURST_PERIOD_NANOS = TimeUnit.SECONDS.toNanos(1);
+		private static final long BURST_NANOS = BURST_PERIOD_NANOS / 10;
+		private static final double RAMP_START = 0.1;
+
+		/**
+		 * @return the intended send time of the next message relative to the start
+		 */
+		long next(long elapsedNanos, long intervalNanos, long durationNanos) {
+			switch (this) {
+			case BURSTY:
+				long next = elapsedNanos + intervalNanos * BURST_NANOS / BURST_PERIOD_NANOS;
+				if (next % BURST_PERIOD_NANOS < BURST_NANOS)
+					return next;
+				return (next / BURST_PERIOD_NANOS + 1) * BURST_PERIOD_NANOS;
+			case RAMP:
+				double ratio = Math.min(1.0, RAMP_START + (1 - RAMP_START) * elapsedNanos / (durationNanos / 2.0));
+				return elapsedNanos + (long) (intervalNanos / ratio);
+			case CONSTANT:
+			default:
+				return elapsedNanos + intervalNanos;
+			}
+		}
+	}
+
+	/**
+	 * Payload of the soak messages.
+	 */
+	public static final class SoakMessage {
+		private final long intendedNanos;
+		private final long sentNanos;
+		private final byte[] payload;
+
+		private SoakMessage(long intendedNanos, long sentNanos, byte[] payload) {
+			this.intendedNanos = intendedNanos;
+			this.sentNanos = sentNanos;
+			this.payload = payload;
+		}
+
+		public long getIntendedNanos() {
+			return intendedNanos;
+		}
+
+		public long getSentNanos() {
+			return sentNanos;
+		}
+
+		public byte[] getPayload() {
+			return payload;
+		}
+	}
+
+	private final int producerCount;
+	private final long rate;
+	private final ArrivalPattern pattern;
+	private final int messageBytes;
+	private final long durationNanos;
+	private final long reportNanos;
+	private final ActorCluster cluster;
+	private final SoakActor actor;
+	private final LatencyHistogram correctedLatency;
+	private final LatencyHistogram sendLatency;
+	private final LongAdder sent;
+	private final LongAdder rejected;
+
+	private SoakTest() {
+		this.producerCount = Integer.getInteger("soak.producers", 4);
+		this.rate = Long.getLong("soak.rate", 10_000L);
+		this.pattern = ArrivalPattern.valueOf(System.getProperty("soak.pattern", ArrivalPattern.CONSTANT.name()));
+		this.messageBytes = Integer.getInteger("soak.messageBytes", 256);
+		this.durationNanos = TimeUnit.SECONDS.toNanos(Long.getLong("soak.seconds", 3_600L));
+		this.reportNanos = TimeUnit.SECONDS.toNanos(Long.getLong("soak.reportSeconds", 10L));
+		this.correctedLatency = new LatencyHistogram();
+		this.sendLatency = new LatencyHistogram();
+		this.sent = new LongAdder();
+		this.rejected = new LongAdder();
+
+		ThreadPoolTypes poolType = ThreadPoolTypes
+				.valueOf(System.getProperty("soak.poolType", ThreadPoolTypes.FIXED_SIZED.name()));
+		long queueLimit = Long.getLong("soak.queueLimit", 0L);
+		DivisionStrategy<SoakMessage> strategy = queueLimit > 0 ? new NumberBasedDivison<>(queueLimit)
+				: new NoDivision<>();
+		this.cluster = new ActorCluster(new ClusterConfig(poolType, false));
+		ActorConfig<SoakMessage> config = new ActorConfig<SoakMessage>(new Topic(TOPIC), cluster.getRouter(),
+				strategy, ActorPriority.DEFAULT, null)
+				.setIdleRetirementMillis(Long.getLong("soak.idleRetirementMillis", 0L));
+		this.actor = new SoakActor(config, Long.getLong("soak.cpuTokens", 1_000L), correctedLatency, sendLatency);
+		cluster.addRootActor(actor);
+	}
+
+	public static void main(String[] args) throws Exception {
+		new SoakTest().run();
+	}
+
+	private void run() throws Exception {
+		long start = System.nanoTime();
+		List<Thread> producers = new ArrayList<>();
+		for (int i = 0; i < producerCount; i++) {
+			Thread producer = new Thread(producer(start, i), "soak-producer-" + i);
+			producer.setDaemon(true);
+			producer.start();
+			producers.add(producer);
+		}
+		report(start);
+		for (Thread producer : producers)
+			producer.join();
+		cluster.waitForTermination(TOPIC, false);
+		System.out.println("total " + correctedLatency.snapshot());
+		cluster.terminateCluster(true, false);
+	}
+
+	/**
+	 * Sends at the intended times of the pattern. A late producer doesn't skip
+	 * or re-plan its messages, so the schedule of the run stays the same whatever
+	 * the cluster does.
+	 */
+	private Runnable producer(long start, int index) {
+		long intervalNanos = TimeUnit.SECONDS.toNanos(producerCount) / Math.max(1, rate);
+		return () -> {
+			long elapsed = intervalNanos * index / producerCount;
+			while (elapsed < durationNanos) {
+				long intended = start + elapsed;
+				long delay;
+				while ((delay = intended - System.nanoTime()) > 0)
+					LockSupport.parkNanos(delay);
+				SoakMessage message = new SoakMessage(intended, System.nanoTime(), new byte[messageBytes]);
+				try {
+					actor.sendByLocking(new ActorMessage<>(message));
+					sent.increment();
+				} catch (MailboxOverflowException e) {
+					rejected.increment();
+				}
+				elapsed = pattern.next(elapsed, intervalNanos, durationNanos);
+			}
+		};
+	}
+
+	private void report(long start) throws InterruptedException {
+		HistogramSnapshot lastCorrected = HistogramSnapshot.EMPTY;
+		HistogramSnapshot lastSend = HistogramSnapshot.EMPTY;
+		long lastSent = 0;
+		long lastNanos = start;
+		long end = start + durationNanos;
+		long nextReport = start + reportNanos;
+		while (lastNanos - end < 0) {
+			TimeUnit.NANOSECONDS.sleep(Math.max(0, Math.min(nextReport, end) - System.nanoTime()));
+			long now = System.nanoTime();
+			nextReport += reportNanos;
+
+			HistogramSnapshot corrected = correctedLatency.snapshot();
+			HistogramSnapshot send = sendLatency.snapshot();
+			HistogramSnapshot interval = corrected.since(lastCorrected);
+			long totalSent = sent.sum();
+			double seconds = (now - lastNanos) / 1e9;
+			MetricsSnapshot metrics = cluster.getMetricsSnapshot(TOPIC);
+			System.out.println(String.format(LINE, TimeUnit.NANOSECONDS.toSeconds(now - start),
+					(totalSent - lastSent) / seconds, interval.getCount() / seconds, rejected.sum(),
+					micros(interval.getValueAtPercentile(50)), micros(interval.getValueAtPercentile(99)),
+					micros(interval.getValueAtPercentile(99.9)), micros(interval.getMaxNanos()),
+					micros(send.since(lastSend).getValueAtPercentile(99)), metrics.getNodeCount(),
+					metrics.getQueueDepth(), megabytes(heapUsed(false)), megabytes(heapUsed(true))));
+
+			lastCorrected = corrected;
+			lastSend = send;
+			lastSent = totalSent;
+			lastNanos = now;
+		}
+	}
+
+	/**
+	 * The usage after the last collection is what's left alive, a leak shows up
+	 * as a steady climb of it.
+	 */
+	private static long heapUsed(boolean afterGc) {
+		long used = 0;
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (!MemoryType.HEAP.equals(pool.getType()))
+				continue;
+			MemoryUsage usage = afterGc ? pool.getCollectionUsage() : pool.getUsage();
+			if (usage != null)
+				used += usage.getUsed();
+		}
+		return used;
+	}
+
+	private static double micros(long nanos) {
+		return nanos / 1e3;
+	}
+
+	private static double megabytes(long bytes) {
+		return bytes / (1024.0 * 1024.0);
+	}
+}
@@ -1,32 +1,128 @@
 package par.core.actor.base;
 
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Getter;
 import lombok.Setter;
+import lombok.ToString.Exclude;
 import lombok.experimental.Accessors;
-import par.core.actor.annotations.Immutable;
 
 /**
- * Immutability of the ActorMessage.message field belongs to the user.
+ * Immutability of the ActorMessage.message field belongs to the user.<br>
+ * The id is assigned by the cluster's {@code IdGenerator} once the message is
+ * enqueued, a message without an id generates a UUID on the first read. A
+ * numeric id is kept as a long and rendered as a String on the first read.<br>
+ * An asked message carries the future of its reply, so replies are correlated
+ * without any lookup.
  * 
  * @author osman.yasal
  *
  * @param <T>
  */
-@Immutable
 @Data
 @Accessors(chain = true)
 public class ActorMessage<T> {
+	@SuppressWarnings("rawtypes")
+	private static final AtomicReferenceFieldUpdater<ActorMessage, String> ID_UPDATER = AtomicReferenceFieldUpdater
+			.newUpdater(ActorMessage.class, String.class, "id");
+	@SuppressWarnings("rawtypes")
+	private static final AtomicLongFieldUpdater<ActorMessage> NUMERIC_ID_UPDATER = AtomicLongFieldUpdater
+			.newUpdater(ActorMessage.class, "numericId");
+
+	@Setter(AccessLevel.PRIVATE)
+	private volatile String id;
+
+	// 0 if the message doesn't have a numeric id.
 	@Setter(AccessLevel.PRIVATE)
-	private String id;
+	@Getter(AccessLevel.PRIVATE)
+	private volatile long numericId;
 
 	@Setter(AccessLevel.PRIVATE)
 	private T message;
 
+	// set once the message enters a mailbox, 0 if it's unknown. (e.g. spilled or
+	// replayed messages)
+	@Exclude
+	@Setter(AccessLevel.PRIVATE)
+	private transient long enqueueNanos;
+
+	// completed by the reply of an asked message, null for the others.
+	@Exclude
+	@Setter(AccessLevel.PRIVATE)
+	@Getter(AccessLevel.PRIVATE)
+	private transient volatile CompletableFuture<Object> reply;
+
 	public ActorMessage(T message) {
-		this.id = UUID.randomUUID().toString();
 		this.message = message;
 	}
+
+	public String getId() {
+		String current = id;
+		if (current != null)
+			return current;
+		long numeric = numericId;
+		ID_UPDATER.compareAndSet(this, null, numeric != 0 ? Long.toString(numeric) : UUID.randomUUID().toString());
+		return id;
+	}
+
+	public final void markEnqueued(long nanos) {
+		this.enqueueNanos = nanos;
+	}
+
+	/**
+	 * Attaches a new reply future to the message, used by {@code Actor.ask}.
+	 */
+	@SuppressWarnings("unchecked")
+	public final <R> CompletableFuture<R> expectReply() {
+		CompletableFuture<Object> future = new CompletableFuture<>();
+		this.reply = future;
+		return (CompletableFuture<R>) (CompletableFuture<?>) future;
+	}
+
+	public final boolean isAsk() {
+		return reply != null;
+	}
+
+	/**
+	 * Completes the reply future, only the first reply or failure counts.
+	 * 
+	 * @return false if the message isn't asked or it's already replied.
+	 */
+	public final boolean reply(Object result) {
+		CompletableFuture<Object> current = reply;
+		return current != null && current.complete(result);
+	}
+
+	public final boolean fail(Throwable cause) {
+		CompletableFuture<Object> current = reply;
+		return current != null && current.completeExceptionally(cause);
+	}
+
+	public final boolean hasId() {
+		return id != null || numericId != 0;
+	}
+
+	/**
+	 * Sets the id only if the message doesn't have one yet.
+	 * 
+	 * @return true if the id is set by this call.
+	 */
+	public final boolean assignId(String newId) {
+		return ID_UPDATER.compareAndSet(this, null, newId);
+	}
+
+	/**
+	 * Sets a numeric id only if the message doesn't have one yet, it doesn't
+	 * allocate anything until the id is read.
+	 * 
+	 * @return true if the id is set by this call.
+	 */
+	public final boolean assignId(long newId) {
+		return id == null && NUMERIC_ID_UPDATER.compareAndSet(this, 0, newId);
+	}
 }
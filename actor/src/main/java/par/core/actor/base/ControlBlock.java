@@ -1,6 +1,7 @@
 package par.core.actor.base;
 
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 import lombok.AccessLevel;
 import lombok.Data;
@@ -25,21 +26,63 @@ import lombok.experimental.Accessors;
 @Accessors(chain = true)
 public class ControlBlock {
 	public enum Status {
-		ACTIVE, PASSIVE
+		ACTIVE, PASSIVE,
+		// claimed by the idle retirement, it's neither activated nor passivated
+		// meanwhile.
+		RETIRING
 	}
+
+	private static final AtomicReferenceFieldUpdater<ControlBlock, Status> STATUS_UPDATER = AtomicReferenceFieldUpdater
+			.newUpdater(ControlBlock.class, Status.class, "status");
+
+	private static final AtomicReferenceFieldUpdater<ControlBlock, String> ID_UPDATER = AtomicReferenceFieldUpdater
+			.newUpdater(ControlBlock.class, String.class, "id");
+
+	// assigned by the cluster's IdGenerator or generated on the first read.
 	@Setter(value = AccessLevel.PRIVATE)
-	private String id;
+	private volatile String id;
 
 	@Setter(value = AccessLevel.PRIVATE)
 	private Type type;
 
 	private boolean isRoot;
-	private Status status;
+	private volatile Status status;
 
 	public ControlBlock(Type type, Status status, boolean isRoot) {
-		this.id = UUID.randomUUID().toString();
 		this.status = status;
 		this.type = type;
 		this.isRoot = isRoot;
 	}
+
+	public String getId() {
+		String current = id;
+		if (current != null)
+			return current;
+		ID_UPDATER.compareAndSet(this, null, UUID.randomUUID().toString());
+		return id;
+	}
+
+	public final boolean hasId() {
+		return id != null;
+	}
+
+	/**
+	 * Sets the id only if the block doesn't have one yet.
+	 * 
+	 * @return true if the id is set by this call.
+	 */
+	public final boolean assignId(String newId) {
+		return ID_UPDATER.compareAndSet(this, null, newId);
+	}
+
+	/**
+	 * Atomically changes the status only if it's still the expected one.
+	 * 
+	 * @param expect
+	 * @param update
+	 * @return true if the status is changed by this call.
+	 */
+	public final boolean compareAndSetStatus(Status expect, Status update) {
+		return STATUS_UPDATER.compareAndSet(this, expect, update);
+	}
 }
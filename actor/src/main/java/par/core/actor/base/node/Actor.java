@@ -2,11 +2,19 @@ package par.core.actor.base.node;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.LinkedList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.LockSupport;
 import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.commons.collections4.CollectionUtils;
@@ -18,6 +26,7 @@ import com.google.gson.GsonBuilder;
 
 import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString.Exclude;
@@ -34,10 +43,25 @@ import par.core.actor.base.Topic;
 import par.core.actor.base.Type;
 import par.core.actor.base.node.configs.ActorConfig;
 import par.core.actor.cache.Cache;
+import par.core.actor.divisionstrategies.AutoDivision;
 import par.core.actor.divisionstrategies.DivisionStrategy;
+import par.core.actor.divisionstrategies.KeyPartitionedDivision;
+import par.core.actor.divisionstrategies.LatencyBasedDivision;
 import par.core.actor.divisionstrategies.NoDivision;
 import par.core.actor.divisionstrategies.NumberBasedDivison;
+import par.core.actor.divisionstrategies.PooledDivision;
+import par.core.actor.exceptions.MailboxOverflowException;
+import par.core.actor.exceptions.UnrepliedMessageException;
 import par.core.actor.factories.ControlBlockFactory;
+import par.core.actor.factories.MailboxFactory;
+import par.core.actor.ids.IdGenerator;
+import par.core.actor.journal.JournalSyncMode;
+import par.core.actor.journal.MailboxJournal;
+import par.core.actor.mailbox.Mailbox;
+import par.core.actor.mailbox.OverflowCounters;
+import par.core.actor.mailbox.OverflowPolicy;
+import par.core.actor.metrics.ActorMetrics;
+import par.core.actor.metrics.MetricsSnapshot;
 import par.core.actor.serializers.JsonConverter;
 import par.core.actor.terminators.ActorTerminator;
 import par.core.actor.utils.RuntimeTypeAdapterFactory;
@@ -60,6 +84,10 @@ import par.core.actor.utils.RuntimeTypeAdapterFactory;
 public abstract class Actor<T>
 		implements Callable<Object>, ActorTerminator<T>, Comparable<Actor<T>>, JsonConverter<Actor<T>> {
 
+	private static final String REPLAYED_MESSAGES = "%d messages of %s are replayed from the journal";
+	private static final long LINGER_PARK_NANOS = 50_000L;
+	private static final String UNSUPPORTED_ASK = "The nodes of the [%s] topic can't reply";
+
 	@Setter(value = AccessLevel.PRIVATE)
 	private ControlBlock cb;
 
@@ -72,13 +100,48 @@ public abstract class Actor<T>
 	// task queue
 	@Setter(value = AccessLevel.PRIVATE)
 	@Getter(value = AccessLevel.PRIVATE)
-	private List<ActorMessage<T>> queue;
+	private Mailbox<T> queue;
 
 	@Exclude // exclude for toString() method.
 	@Setter(value = AccessLevel.PRIVATE)
 	@Getter(value = AccessLevel.PRIVATE)
 	private Lock queueLock;
 
+	// senders of a full mailbox wait on this condition. (BLOCK policy)
+	@Exclude
+	@Setter(value = AccessLevel.PRIVATE)
+	@Getter(value = AccessLevel.PRIVATE)
+	@GuardedBy(Actor.Fields.queueLock)
+	private Condition notFull;
+
+	@Exclude
+	@Setter(value = AccessLevel.PRIVATE)
+	@Getter(value = AccessLevel.PRIVATE)
+	private AtomicInteger blockedSenders;
+
+	// set while the node is submitted to the pool or running, so an activation
+	// that overlaps the end of the previous run can't execute it a second time.
+	@Exclude
+	@Setter(value = AccessLevel.PRIVATE)
+	@Getter(value = AccessLevel.PRIVATE)
+	private AtomicBoolean isSubmitted;
+
+	// the thread processing the mailbox, null while the node isn't executed.
+	@Exclude
+	@Setter(value = AccessLevel.PRIVATE)
+	@Getter(value = AccessLevel.PRIVATE)
+	private volatile Thread executingThread;
+
+	// how many times the overflow policies fired.
+	@Exclude
+	@Setter(value = AccessLevel.PRIVATE)
+	private OverflowCounters overflowCounters;
+
+	// arrival, processing and service time counters of the node.
+	@Exclude
+	@Setter(value = AccessLevel.PRIVATE)
+	private ActorMetrics metrics;
+
 	// the router node of the cluster
 	@Exclude
 	@Setter(value = AccessLevel.PRIVATE)
@@ -87,12 +150,20 @@ public abstract class Actor<T>
 
 	// Every actor might have only one child actor.
 	@Setter(value = AccessLevel.PRIVATE)
-	private Actor<T> childActor;
+	private volatile Actor<T> childActor;
+
+	// flat pool of sibling workers, only used by the root node of pooled
+	// division strategies.
+	@Exclude
+	@Setter(value = AccessLevel.PRIVATE)
+	@Getter(value = AccessLevel.PRIVATE)
+	private List<Actor<T>> workers;
 
 	@Exclude
 	@Setter(value = AccessLevel.PRIVATE)
 	@Getter(value = AccessLevel.PRIVATE)
-	private boolean isNotified;
+	private Lock workerLock;
+
 	private DivisionStrategy<T> divisionStrategy;
 
 	@Setter(value = AccessLevel.PRIVATE)
@@ -109,6 +180,32 @@ public abstract class Actor<T>
 	@Getter(AccessLevel.PRIVATE)
 	private Logger logger;
 
+	// local buffer of the batched drain, only touched by the executing thread.
+	@Exclude
+	@Setter(AccessLevel.PRIVATE)
+	@Getter(AccessLevel.PRIVATE)
+	private List<ActorMessage<T>> batchBuffer;
+
+	// hands the unprocessed part of the batch buffer to a terminator.
+	@Exclude
+	@Setter(AccessLevel.PRIVATE)
+	@Getter(AccessLevel.PRIVATE)
+	private BatchCursor batchCursor;
+
+	// last time the node went PASSIVE, used for the idle retirement.
+	@Exclude
+	@Setter(AccessLevel.PRIVATE)
+	@Getter(AccessLevel.PRIVATE)
+	private volatile long passiveSinceNanos;
+
+	// the node a retired node forwards its late messages to, null while the node
+	// is linked.
+	@Exclude
+	@EqualsAndHashCode.Exclude
+	@Setter(AccessLevel.PRIVATE)
+	@Getter(AccessLevel.PRIVATE)
+	private volatile Actor<T> successor;
+
 	/**
 	 * Every actor object must have a topic which defines the job they do. And every
 	 * actor must have a pointer to a router. by default we use the ActorCluster's
@@ -120,7 +217,15 @@ public abstract class Actor<T>
 	 */
 	protected Actor(ActorConfig<T> config) {
 		adjustConfigurations(config);
-		init();
+		init(MailboxFactory.getMailbox(config));
+	}
+
+	/**
+	 * Used by the primitive actors that bring their own mailbox.
+	 */
+	Actor(ActorConfig<T> config, Mailbox<T> mailbox) {
+		adjustConfigurations(config);
+		init(mailbox);
 	}
 
 	private void adjustConfigurations(ActorConfig<T> config) {
@@ -133,11 +238,36 @@ public abstract class Actor<T>
 		this.waitList = config.getWaitList();
 	}
 
-	private void init() {
+	private void init(Mailbox<T> mailbox) {
 		this.cb = ControlBlockFactory.createCb(Type.WORKER);
+		if (router != null)
+			router.getIdGenerator().assign(cb);
 		this.queueLock = new ReentrantLock(true);
-		this.queue = new LinkedList<>();
-		this.isNotified = false;
+		this.notFull = queueLock.newCondition();
+		this.blockedSenders = new AtomicInteger();
+		this.isSubmitted = new AtomicBoolean();
+		this.overflowCounters = new OverflowCounters();
+		this.metrics = new ActorMetrics();
+		this.queue = mailbox;
+		this.batchBuffer = new ArrayList<>();
+		this.batchCursor = new BatchCursor();
+		this.workers = new CopyOnWriteArrayList<>();
+		this.workerLock = new ReentrantLock();
+		this.passiveSinceNanos = System.nanoTime();
+	}
+
+	/**
+	 * Concurrent mailboxes don't need the queue lock, so we only take it for the
+	 * mailboxes that are not thread safe by themselves.
+	 */
+	final void lockQueue() {
+		if (!queue.isConcurrent())
+			queueLock.lock();
+	}
+
+	final void unlockQueue() {
+		if (!queue.isConcurrent())
+			queueLock.unlock();
 	}
 
 	public Actor<?> getRootActor(String topic) {
@@ -163,15 +293,82 @@ public abstract class Actor<T>
 	 */
 	public final int getActiveNodeCount() {
 		int result = 0;
-		Actor<?> iter = this;
-		while (iter != null) {
-			if (Status.ACTIVE.equals(iter.cb.getStatus()))
+		for (Actor<T> node : getNodes()) {
+			if (Status.ACTIVE.equals(node.cb.getStatus()))
 				result++;
+		}
+		return result;
+	}
+
+	/**
+	 * Snapshot of this node, its pool workers and the child chains of them.
+	 * 
+	 * @return
+	 */
+	public final List<Actor<T>> getNodes() {
+		List<Actor<T>> result = new ArrayList<>();
+		Actor<T> iter = this;
+		while (iter != null) {
+			result.add(iter);
+			for (Actor<T> worker : iter.workers)
+				result.addAll(worker.getNodes());
 			iter = iter.childActor;
 		}
 		return result;
 	}
 
+	/**
+	 * @return the metrics of this node only, taken without stopping it.
+	 */
+	@ThreadSafe
+	public final MetricsSnapshot getMetricsSnapshot() {
+		return metrics.snapshot(Status.ACTIVE.equals(cb.getStatus()), getQueueSize());
+	}
+
+	/**
+	 * @return the merged metrics of this node, its pool workers and children.
+	 */
+	@ThreadSafe
+	public final MetricsSnapshot getNodeStackMetricsSnapshot() {
+		MetricsSnapshot result = MetricsSnapshot.EMPTY;
+		for (Actor<T> node : getNodes())
+			result = result.merge(node.getMetricsSnapshot());
+		return result;
+	}
+
+	/**
+	 * @return read-only snapshot of the pool workers of this node, workers might
+	 *         be added or retired meanwhile.
+	 */
+	public final List<Actor<T>> getPoolWorkers() {
+		return Collections.unmodifiableList(new ArrayList<>(workers));
+	}
+
+	public final boolean hasPoolWorkers() {
+		return !workers.isEmpty();
+	}
+
+	/**
+	 * Adds a new sibling worker to the pool of this node unless the pool,
+	 * including this node, has already reached the given width.
+	 * 
+	 * @param maxWidth
+	 * @return the new worker or null if the pool is full.
+	 */
+	@ThreadSafe
+	public final Actor<T> addPoolWorker(int maxWidth) {
+		workerLock.lock();
+		try {
+			if (workers.size() + 1 >= maxWidth)
+				return null;
+			Actor<T> worker = registerNode(generateChildActor());
+			workers.add(worker);
+			return worker;
+		} finally {
+			workerLock.unlock();
+		}
+	}
+
 	@Immutable
 	public final int getQueueSize() {
 		return getQueue().size();
@@ -182,15 +379,35 @@ public abstract class Actor<T>
 		return getQueue().isEmpty();
 	}
 
+	/**
+	 * @return how long the head of the queue has been waiting, 0 if the queue is
+	 *         empty or the enqueue time of the head is unknown.
+	 */
+	@Immutable
+	@ThreadSafe
+	@GuardedBy(Actor.Fields.queueLock)
+	public final long getQueueHeadAgeNanos() {
+		ActorMessage<T> head;
+		lockQueue();
+		try {
+			head = queue.peek();
+		} finally {
+			unlockQueue();
+		}
+		if (head == null || head.getEnqueueNanos() == 0)
+			return 0;
+		return System.nanoTime() - head.getEnqueueNanos();
+	}
+
 	@Immutable
 	@ThreadSafe
 	@GuardedBy(Actor.Fields.queueLock)
 	public final int getQueueSizeLocked() {
-		queueLock.lock();
+		lockQueue();
 		try {
 			return getQueue().size();
 		} finally {
-			queueLock.unlock();
+			unlockQueue();
 		}
 
 	}
@@ -199,11 +416,11 @@ public abstract class Actor<T>
 	@ThreadSafe
 	@GuardedBy(Actor.Fields.queueLock)
 	public final boolean isQueueEmptyLocked() {
-		queueLock.lock();
+		lockQueue();
 		try {
 			return getQueue().isEmpty();
 		} finally {
-			queueLock.unlock();
+			unlockQueue();
 		}
 
 	}
@@ -217,10 +434,12 @@ public abstract class Actor<T>
 	 */
 	@Immutable
 	public final void load(ActorMessage<T> message) {
+		assignId(message);
+		journal(message);
 		if (divisionStrategy.isConditionValid(this)) {
 			divisionStrategy.executeLoadingStrategy(this, Arrays.asList(message));
-		} else {
-			queue.add(message);
+		} else if (!enqueue(message, false)) {
+			throw new MailboxOverflowException(topic.getName(), config.getCapacity());
 		}
 	}
 
@@ -234,15 +453,20 @@ public abstract class Actor<T>
 
 	@Immutable
 	public final void loadAll(List<ActorMessage<T>> messageList) {
+		assignIds(messageList);
+		journalAll(messageList);
 		if (divisionStrategy.isConditionValid(this)) {
 			divisionStrategy.executeLoadingStrategy(this, messageList);
 		} else {
-			messageList.stream().forEach(x -> {
+			boolean isAllEnqueued = true;
+			for (ActorMessage<T> x : messageList) {
 				if (divisionStrategy.isConditionValid(this)) {
 					divisionStrategy.executeLoadingStrategy(this, Arrays.asList(x));
 				} else
-					queue.add(x);
-			});
+					isAllEnqueued &= enqueue(x, false);
+			}
+			if (!isAllEnqueued)
+				throw new MailboxOverflowException(topic.getName(), config.getCapacity());
 		}
 	}
 
@@ -267,16 +491,36 @@ public abstract class Actor<T>
 	@ThreadSafe
 	@GuardedBy(Actor.Fields.queueLock)
 	public final void sendByLocking(ActorMessage<T> message) {
-		queueLock.lock();
+		if (!trySendByLocking(message))
+			throw new MailboxOverflowException(topic.getName(), config.getCapacity());
+	}
+
+	/**
+	 * Same as {@code sendByLocking(message)} but reports the rejection of a full
+	 * mailbox by its return value instead of throwing
+	 * {@code MailboxOverflowException}.
+	 * 
+	 * @param message
+	 * @return false if the message is rejected by the overflow policy (REJECT or
+	 *         the timeout of BLOCK). dropped messages are only counted.
+	 */
+	@Immutable
+	@ThreadSafe
+	@GuardedBy(Actor.Fields.queueLock)
+	public final boolean trySendByLocking(ActorMessage<T> message) {
+		assignId(message);
+		journal(message);
+		lockQueue();
 		try {
 			if (divisionStrategy.isConditionValid(this)) {
 				divisionStrategy.executeSendingStrategy(this, Arrays.asList(message));
-			} else {
-				queue.add(message);
-				sendExecutionRequest();
+				return true;
 			}
+			boolean isEnqueued = enqueue(message, true);
+			sendExecutionRequest();
+			return isEnqueued;
 		} finally {
-			queueLock.unlock();
+			unlockQueue();
 		}
 	}
 
@@ -290,44 +534,301 @@ public abstract class Actor<T>
 	@ThreadSafe
 	@GuardedBy(Actor.Fields.queueLock)
 	public final void sendAllByLocking(List<ActorMessage<T>> messageList) {
-		queueLock.lock();
+		assignIds(messageList);
+		journalAll(messageList);
+		lockQueue();
 		try {
 			if (divisionStrategy.isConditionValid(this)) {
 				divisionStrategy.executeSendingStrategy(this, messageList);
 			} else {
-				messageList.stream().forEach(x -> {
+				boolean isAllEnqueued = true;
+				for (ActorMessage<T> x : messageList) {
 					if (divisionStrategy.isConditionValid(this)) {
 						divisionStrategy.executeSendingStrategy(this, Arrays.asList(x));
 					} else
-						queue.add(x);
-				});
+						isAllEnqueued &= enqueue(x, true);
+				}
 				sendExecutionRequest();
+				if (!isAllEnqueued)
+					throw new MailboxOverflowException(topic.getName(), config.getCapacity());
 			}
 
 		} finally {
+			unlockQueue();
+		}
+	}
+
+	/**
+	 * Sends the message like {@code sendByLocking(message)} and returns the
+	 * future of its reply, completed by the result of {@code operateAsk}.<br>
+	 * The future is carried by the message itself, so no lookup or thread is
+	 * involved. It fails if the message is rejected, dropped or returned by a
+	 * termination. Spilled or replayed messages lose their future, asking
+	 * topics should use a timeout.
+	 * 
+	 * @param message
+	 * @return
+	 */
+	@ThreadSafe
+	public final <R> CompletableFuture<R> ask(ActorMessage<T> message) {
+		if (!isAskSupported())
+			throw new UnsupportedOperationException(String.format(UNSUPPORTED_ASK, topic.getName()));
+		CompletableFuture<R> future = message.expectReply();
+		try {
+			sendByLocking(message);
+		} catch (MailboxOverflowException e) {
+			future.completeExceptionally(e);
+		}
+		return future;
+	}
+
+	/**
+	 * Same as {@code ask(message)}, the future fails with a
+	 * {@code TimeoutException} if it isn't completed in time.
+	 */
+	@ThreadSafe
+	public final <R> CompletableFuture<R> ask(ActorMessage<T> message, long timeout, TimeUnit unit) {
+		return this.<R>ask(message).orTimeout(timeout, unit);
+	}
+
+	/**
+	 * Subscribes this node to a published topic, @see
+	 * {@code RouterNode.publish(topic, payload)}
+	 */
+	@ThreadSafe
+	public final void subscribe(Topic publishedTopic) {
+		router.subscribe(publishedTopic, this);
+	}
+
+	@ThreadSafe
+	public final boolean unsubscribe(Topic publishedTopic) {
+		return router.unsubscribe(publishedTopic, this);
+	}
+
+	boolean isAskSupported() {
+		return true;
+	}
+
+	/**
+	 * Adds the message to the mailbox by respecting the capacity, once the
+	 * mailbox is full the configured {@code OverflowPolicy} decides.
+	 * 
+	 * @param message
+	 * @param isSending diverted messages are either sent to the child or loaded.
+	 * @return false if the message is rejected.
+	 */
+	private boolean enqueue(ActorMessage<T> message, boolean isSending) {
+		int capacity = config.getCapacity();
+		if (capacity <= 0 || queue.size() < capacity)
+			return offer(message);
+
+		OverflowPolicy policy = config.getOverflowPolicy();
+		overflowCounters.fired(policy);
+		switch (policy) {
+		case DROP_NEWEST:
+			acknowledge(message);
+			return true;
+		case DROP_OLDEST:
+			acknowledge(queue.poll());
+			return offer(message);
+		case DIVERT_TO_CHILD:
+			if (isSending)
+				fetchChildActor().sendByLocking(message);
+			else
+				fetchChildActor().load(message);
+			return true;
+		case REJECT:
+			acknowledge(message);
+			return false;
+		case BLOCK:
+		default:
+			if (awaitCapacity(capacity, isSending))
+				return offer(message);
+			overflowCounters.blockTimedOut();
+			acknowledge(message);
+			return false;
+		}
+	}
+
+	private boolean offer(ActorMessage<T> message) {
+		message.markEnqueued(System.nanoTime());
+		boolean isEnqueued = queue.offer(message);
+		if (isEnqueued) {
+			metrics.arrived();
+			// a retired node only runs to forward the message.
+			if (successor != null)
+				sendExecutionRequest();
+		}
+		return isEnqueued;
+	}
+
+	/**
+	 * Waits until the mailbox has free space or the block timeout elapses. The
+	 * queue lock is released while waiting so the node can drain the mailbox.
+	 * <br>
+	 * Fails fast if nobody could drain it meanwhile, when the node sends to
+	 * itself from {@code operate} or a message is loaded to a passive node.
+	 * Loading never starts the node.
+	 */
+	@GuardedBy(Actor.Fields.queueLock)
+	private boolean awaitCapacity(int capacity, boolean isSending) {
+		if (Thread.currentThread() == executingThread)
+			return false;
+		if (isSending)
+			sendExecutionRequest();
+		else if (!Status.ACTIVE.equals(cb.getStatus()))
+			return false;
+		long nanos = TimeUnit.MILLISECONDS.toNanos(config.getBlockTimeoutMillis());
+		queueLock.lock();
+		blockedSenders.incrementAndGet();
+		try {
+			while (queue.size() >= capacity) {
+				if (nanos <= 0L)
+					return false;
+				nanos = notFull.awaitNanos(nanos);
+			}
+			return true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		} finally {
+			blockedSenders.decrementAndGet();
 			queueLock.unlock();
 		}
 	}
 
 	/**
-	 * Notify cluster for execution only if it's not currently executed!
+	 * Gives the message an id of the cluster's {@code IdGenerator} unless it
+	 * already has one.
 	 */
-	private void sendExecutionRequest() {
-		if (!this.isNotified && this.cb.getStatus().equals(Status.PASSIVE)) {
-			this.router.executeNode(this);
-			this.isNotified = true;
+	private void assignId(ActorMessage<T> message) {
+		router.getIdGenerator().assign(message);
+	}
+
+	private void assignIds(List<ActorMessage<T>> messageList) {
+		IdGenerator idGenerator = router.getIdGenerator();
+		messageList.forEach(idGenerator::assign);
+	}
+
+	/**
+	 * Appends the message to the topic's journal before it reaches a mailbox.
+	 * messages that are forwarded between the nodes of the topic are journaled
+	 * only once.
+	 */
+	private void journal(ActorMessage<T> message) {
+		MailboxJournal<T> journal = fetchJournal();
+		if (journal != null)
+			journal.append(message);
+	}
+
+	private void journalAll(List<ActorMessage<T>> messageList) {
+		MailboxJournal<T> journal = fetchJournal();
+		if (journal != null)
+			journal.appendAll(messageList);
+	}
+
+	/**
+	 * Marks the message as consumed in the journal, called for the processed,
+	 * dropped, rejected and terminated messages.
+	 */
+	private void acknowledge(ActorMessage<T> message) {
+		if (message == null)
+			return;
+		// no-op for the replied messages.
+		if (message.isAsk())
+			message.fail(new UnrepliedMessageException(topic.getName(), message.getId()));
+		MailboxJournal<T> journal = fetchJournal();
+		if (journal != null)
+			journal.acknowledge(message);
+	}
+
+	private void acknowledgeAll(List<ActorMessage<T>> messageList) {
+		messageList.forEach(this::acknowledge);
+	}
+
+	/**
+	 * @return the journal of the topic, null if the topic isn't journaled or the
+	 *         root actor isn't added to the cluster yet. it's opened by the root
+	 *         actor's setting, a child's own setting doesn't matter.
+	 */
+	@SuppressWarnings("unchecked")
+	private MailboxJournal<T> fetchJournal() {
+		return (MailboxJournal<T>) router.getJournal(topic);
+	}
+
+	/**
+	 * Opens the topic's journal and loads the messages that weren't consumed
+	 * before the last shutdown or crash. They are loaded without an execution
+	 * request, like {@code loadAll(messageList)}. called for the root actor only.
+	 */
+	final void recoverJournal() {
+		if (JournalSyncMode.OFF.equals(config.getJournalSyncMode()))
+			return;
+		List<ActorMessage<T>> messageList = router.openJournal(topic, config).recover();
+		lockQueue();
+		try {
+			messageList.forEach(this::offer);
+		} finally {
+			unlockQueue();
 		}
+		if (!messageList.isEmpty())
+			logger.info(String.format(REPLAYED_MESSAGES, messageList.size(), topic.getName()));
+	}
+
+	/**
+	 * Wakes up the blocked senders, if any, after messages left the mailbox.
+	 */
+	final void signalNotFull() {
+		if (blockedSenders.get() == 0)
+			return;
+		queueLock.lock();
+		try {
+			notFull.signalAll();
+		} finally {
+			queueLock.unlock();
+		}
+	}
+
+	/**
+	 * Notify cluster for execution only if it's not currently executed!<br>
+	 * the cluster activates the node atomically so concurrent senders can't submit
+	 * it twice.
+	 */
+	final void sendExecutionRequest() {
+		if (Status.PASSIVE.equals(this.cb.getStatus()))
+			this.router.executeNode(this);
 	}
 
 	/**
 	 * send an execution request for both itself and it's children nodes.
 	 */
 	public void executeNodeStack() {
-		Actor<?> temp = this;
-		while (temp != null) {
-			temp.sendExecutionRequest();
-			temp = temp.getChildActor();
+		getNodes().forEach(Actor::sendExecutionRequest);
+	}
+
+	/**
+	 * Enqueues the message to this node without checking the division strategy,
+	 * used by the strategies that pick the target node themselves.
+	 * 
+	 * @param message
+	 * @param isSending sends an execution request after the message is enqueued.
+	 */
+	@ThreadSafe
+	@GuardedBy(Actor.Fields.queueLock)
+	public final void deliver(ActorMessage<T> message, boolean isSending) {
+		assignId(message);
+		journal(message);
+		boolean isEnqueued;
+		lockQueue();
+		try {
+			isEnqueued = enqueue(message, isSending);
+			if (isSending)
+				sendExecutionRequest();
+		} finally {
+			unlockQueue();
 		}
+		if (!isEnqueued)
+			throw new MailboxOverflowException(topic.getName(), config.getCapacity());
 	}
 
 	/**
@@ -341,14 +842,18 @@ public abstract class Actor<T>
 	@ThreadSafe
 	@GuardedBy(Actor.Fields.queueLock)
 	private final ActorMessage<T> deq() {
-		queueLock.lock();
+		ActorMessage<T> message;
+		lockQueue();
 		try {
-			if (this.queue.isEmpty())
-				return new ActorMessage<>(null);
-			return queue.remove(0);
+			message = queue.poll();
 		} finally {
-			queueLock.unlock();
+			unlockQueue();
 		}
+		signalNotFull();
+		if (message == null)
+			return new ActorMessage<>(null);
+		recordQueueDelay(message, System.nanoTime());
+		return message;
 	}
 
 	/**
@@ -358,13 +863,190 @@ public abstract class Actor<T>
 	 */
 	@Immutable
 	private final Actor<T> initChildActor(Actor<T> node) {
+		childActor = registerNode(node);
+		return node;
+	}
+
+	private Actor<T> registerNode(Actor<T> node) {
 		this.router.incrementActorCount(node.getTopic());
 		node.getCb().setRoot(false);
 		node.getCb().setStatus(Status.PASSIVE);
-		childActor = node;
+		node.passiveSinceNanos = System.nanoTime();
 		return node;
 	}
 
+	/**
+	 * Retires the idle pool workers and children of this node and of the nodes
+	 * below it.
+	 * 
+	 * @param now
+	 * @return the number of retired nodes.
+	 */
+	final int retireIdleNodes(long now) {
+		int result = 0;
+		for (Actor<T> worker : workers) {
+			if (worker.childActor == null && worker.isIdle(now) && retireWorker(worker))
+				result++;
+			else
+				result += worker.retireIdleNodes(now);
+		}
+		Actor<T> parent = this;
+		Actor<T> child = childActor;
+		while (child != null) {
+			if (child.isIdle(now) && parent.retireChild(child)) {
+				result++;
+			} else {
+				parent = child;
+			}
+			child = parent.childActor;
+		}
+		return result;
+	}
+
+	/**
+	 * @return false if the node is already submitted to the pool or running.
+	 */
+	final boolean claimSubmission() {
+		return isSubmitted.compareAndSet(false, true);
+	}
+
+	final void releaseSubmission() {
+		isSubmitted.set(false);
+	}
+
+	/**
+	 * @return true if the node is unlinked by the idle retirement.
+	 */
+	final boolean isRetired() {
+		return successor != null;
+	}
+
+	final long getIdleRetirementMillis() {
+		return config.getIdleRetirementMillis();
+	}
+
+	/**
+	 * @return max waiting messages, 0 means unbounded.
+	 */
+	public final int getCapacity() {
+		return config.getCapacity();
+	}
+
+	public final OverflowPolicy getOverflowPolicy() {
+		return config.getOverflowPolicy();
+	}
+
+	private boolean isIdle(long now) {
+		long timeout = config.getIdleRetirementMillis();
+		return timeout > 0 && !cb.isRoot() && Status.PASSIVE.equals(cb.getStatus()) && queue.isEmpty()
+				&& now - passiveSinceNanos >= TimeUnit.MILLISECONDS.toNanos(timeout)
+				&& divisionStrategy.isRetirable(this);
+	}
+
+	/**
+	 * Unlinks the child from the chain, the grand child takes its place.
+	 */
+	private boolean retireChild(Actor<T> child) {
+		boolean isUnlinked = unlink(child, () -> {
+			if (childActor != child)
+				return false;
+			childActor = child.childActor;
+			return true;
+		});
+		if (isUnlinked)
+			retire(child);
+		return isUnlinked;
+	}
+
+	/**
+	 * Only the unlinking is done under the worker lock, the stragglers are
+	 * forwarded after it's released. Senders take the queue lock of this node
+	 * before the worker lock while adding workers, and forwarding might block on
+	 * a full mailbox.
+	 */
+	private boolean retireWorker(Actor<T> worker) {
+		boolean isUnlinked;
+		workerLock.lock();
+		try {
+			isUnlinked = unlink(worker, () -> workers.remove(worker));
+		} finally {
+			workerLock.unlock();
+		}
+		if (isUnlinked)
+			retire(worker);
+		return isUnlinked;
+	}
+
+	/**
+	 * The node is claimed by switching it to RETIRING, so senders can't activate
+	 * it and a terminator can't passivate it while it's being unlinked. It's only
+	 * unlinked if its mailbox is empty, the claim of an unlinked node is released
+	 * by {@code retire(node)}.
+	 * 
+	 * @return false if the node is busy or already unlinked.
+	 */
+	private boolean unlink(Actor<T> node, BooleanSupplier unlink) {
+		if (!node.cb.compareAndSetStatus(Status.PASSIVE, Status.RETIRING))
+			return false;
+		boolean isUnlinked;
+		node.queueLock.lock();
+		try {
+			isUnlinked = node.queue.isEmpty() && unlink.getAsBoolean();
+			if (isUnlinked)
+				node.successor = this;
+		} finally {
+			node.queueLock.unlock();
+		}
+		if (!isUnlinked) {
+			release(node);
+			return false;
+		}
+		router.decrementActorCount(topic);
+		router.unsubscribeAll(node);
+		return true;
+	}
+
+	/**
+	 * Forwards the messages that arrived at the unlinked node until now to this
+	 * node. Senders that still hold a reference to the retired node activate it
+	 * once its claim is released, it forwards their messages as well instead of
+	 * processing them.
+	 */
+	private void retire(Actor<T> node) {
+		forwardStragglers(node);
+		release(node);
+	}
+
+	private static void release(Actor<?> node) {
+		node.cb.compareAndSetStatus(Status.RETIRING, Status.PASSIVE);
+		// a sender might have skipped the execution request during the claim.
+		if (!node.isQueueEmpty())
+			node.sendExecutionRequest();
+	}
+
+	/**
+	 * Sends the waiting messages of the retired node to this node, they pass the
+	 * division strategy and the overflow policy like any other message.
+	 */
+	private void forwardStragglers(Actor<T> node) {
+		List<ActorMessage<T>> stragglers;
+		node.queueLock.lock();
+		try {
+			stragglers = node.queue.drain();
+		} finally {
+			node.queueLock.unlock();
+		}
+		node.signalNotFull();
+		for (ActorMessage<T> straggler : stragglers) {
+			try {
+				// a rejected message is acknowledged by the overflow policy.
+				trySendByLocking(straggler);
+			} catch (MailboxOverflowException e) {
+				// same for the nodes of the division strategy.
+			}
+		}
+	}
+
 	/**
 	 * Returns an childActor if exists or else creates one and returns.
 	 * 
@@ -384,16 +1066,52 @@ public abstract class Actor<T>
 	 * 
 	 */
 	public List<ActorMessage<T>> terminateActor(boolean isRecursively) {
-		Thread.currentThread().interrupt();
-		this.cb.setStatus(Status.PASSIVE);
+		stopNode();
+		// before the nodes are drained, so the strategy can't deliver to them anymore.
+		List<ActorMessage<T>> held = terminateStrategy(isRecursively);
+		List<ActorMessage<T>> response;
+		// taken even for the concurrent mailboxes, the in-flight batch is handed over under it.
+		queueLock.lock();
+		try {
+			reclaimBatch();
+			response = queue.drain();
+		} finally {
+			queueLock.unlock();
+		}
+		signalNotFull();
+		// the caller owns the returned messages from now on.
+		acknowledgeAll(response);
+		if (isRecursively) {
+			for (Actor<T> worker : workers)
+				response.addAll(worker.terminateActor(isRecursively));
+		}
 		if (childActor != null && isRecursively) {
-			queue.addAll(childActor.terminateActor(isRecursively));
+			response.addAll(childActor.terminateActor(isRecursively));
 		}
-		List<ActorMessage<T>> response = queue;
-		queue = new LinkedList<>();
+		response.addAll(held);
 		return response;
 	}
 
+	/**
+	 * The messages the division strategy holds back for the nodes of the topic,
+	 * they are returned after the ones of the nodes since they arrived later.
+	 */
+	final List<ActorMessage<T>> terminateStrategy(boolean isRecursively) {
+		if (!isRecursively || !cb.isRoot())
+			return Collections.emptyList();
+		return divisionStrategy.terminate(this);
+	}
+
+	/**
+	 * Interrupts the caller, appoints the node to {@code Status.PASSIVE} and
+	 * removes it from the subscribers, the first step of terminating the node.
+	 */
+	final void stopNode() {
+		Thread.currentThread().interrupt();
+		passivate();
+		router.unsubscribeAll(this);
+	}
+
 	public Map<String, List<?>> terminateNodeStack() {
 		return router.terminateTopic(topic);
 	}
@@ -404,12 +1122,17 @@ public abstract class Actor<T>
 	 */
 	@Override
 	public Object call() throws Exception {
+		boolean isInterrupted = false;
+		boolean isYielded = false;
+		executingThread = Thread.currentThread();
 		try {
-			router.waitForTermination(getWaitListTopics(), false);
-			while (isProcessingAvailable()) {
-				operate(deq());
-			}
-			if (Thread.interrupted()) {
+			Actor<T> target = successor;
+			if (target != null)
+				target.forwardStragglers(this);
+			else
+				isYielded = processMailbox(config.getThroughput());
+			isInterrupted = Thread.interrupted();
+			if (isInterrupted) {
 				logger.debug("interuption recieved!");
 			}
 		} catch (Exception e) {
@@ -417,9 +1140,23 @@ public abstract class Actor<T>
 			e.printStackTrace();
 			// you may re-start the node with the waiting queue or transfer the data to
 			// child nodes.
+		} finally {
+			executingThread = null;
 		}
-		this.cb.setStatus(Status.PASSIVE);
-		this.isNotified = false;
+		if (isYielded && !isInterrupted) {
+			// give the thread back to the pool but stay ACTIVE, so the node is queued
+			// behind the other waiting nodes instead of being re-activated by senders.
+			divisionStrategy.runCompleted(this);
+			router.rescheduleNode(this);
+			return true;
+		}
+		passivate();
+		divisionStrategy.runCompleted(this);
+		router.nodeCompleted(this);
+		// a sender might have enqueued a message after our last check while it saw
+		// this node as ACTIVE, so it's our responsibility to re-schedule the node.
+		if (!isInterrupted && !isQueueEmpty())
+			sendExecutionRequest();
 		return true;
 	}
 
@@ -433,7 +1170,10 @@ public abstract class Actor<T>
 		@SuppressWarnings("rawtypes")
 		RuntimeTypeAdapterFactory<DivisionStrategy> typeFactory = RuntimeTypeAdapterFactory
 				.of(DivisionStrategy.class, "type").registerSubtype(NumberBasedDivison.class, "NumberBasedDivision")
-				.registerSubtype(NoDivision.class, "NoDivison");
+				.registerSubtype(NoDivision.class, "NoDivison").registerSubtype(AutoDivision.class, "AutoDivision")
+				.registerSubtype(PooledDivision.class, "PooledDivision")
+				.registerSubtype(LatencyBasedDivision.class, "LatencyBasedDivision")
+				.registerSubtype(KeyPartitionedDivision.class, "KeyPartitionedDivision");
 		Gson gson = new GsonBuilder().registerTypeAdapterFactory(typeFactory).create();
 		return gson.toJson(getConfig());
 	}
@@ -443,6 +1183,206 @@ public abstract class Actor<T>
 		return null;
 	}
 
+	/**
+	 * Processes the waiting messages of a single activation, overridden by the
+	 * primitive actors to process their values without message objects.
+	 * 
+	 * @param throughput max messages to process, 0 means until the mailbox is
+	 *                   empty.
+	 * @return true if the node yields the thread after consuming its throughput.
+	 */
+	boolean processMailbox(int throughput) {
+		if (config.getBatchSize() > 1)
+			return processBatches(throughput);
+		if (throughput > 0)
+			return processBatch(throughput);
+		// recorded per message since this loop might run for a long time.
+		long start = System.nanoTime();
+		while (isProcessingAvailable()) {
+			try {
+				process(deq());
+			} finally {
+				long end = System.nanoTime();
+				metrics.processed(1, end - start);
+				start = end;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Primitive actors enqueue their values directly into the mailbox as long as
+	 * neither the division strategy nor the capacity get involved, must be called
+	 * while holding the queue lock.
+	 */
+	final boolean isDirectEnqueueAvailable() {
+		int capacity = config.getCapacity();
+		return (capacity <= 0 || queue.size() < capacity) && !divisionStrategy.isConditionValid(this);
+	}
+
+	/**
+	 * Drains up to {@code throughput} messages with a single queue lock
+	 * acquisition and processes them in a tight loop. <br>
+	 * Messages that couldn't be processed because the node is terminated or
+	 * interrupted are put back to the head of the mailbox.
+	 * 
+	 * @param throughput
+	 * @return true if the whole throughput is consumed and there are still
+	 *         waiting messages.
+	 */
+	private boolean processBatch(int throughput) {
+		queueLock.lock();
+		try {
+			queue.drainTo(batchBuffer, throughput);
+			batchCursor.publish(batchBuffer.size());
+		} finally {
+			queueLock.unlock();
+		}
+		signalNotFull();
+		int count = batchBuffer.size();
+		int processed = 0;
+		long now = System.nanoTime();
+		batchBuffer.forEach(x -> recordQueueDelay(x, now));
+		try {
+			int index;
+			long start = now;
+			while (isActive() && (index = batchCursor.next()) < count) {
+				processed++;
+				try {
+					process(batchBuffer.get(index));
+				} finally {
+					// per message, so the percentiles see the slow ones of a batch.
+					long end = System.nanoTime();
+					metrics.processed(1, end - start);
+					start = end;
+				}
+			}
+		} finally {
+			releaseBatch();
+		}
+		return processed == throughput && isActive() && !isQueueEmpty();
+	}
+
+	/**
+	 * Hands the waiting messages to {@code operateBatch} in batches of up to
+	 * {@code batchSize} messages, a batch that isn't full waits up to
+	 * {@code batchLingerMillis} for more messages.
+	 * 
+	 * @param throughput max messages to process, 0 means until the mailbox is
+	 *                   empty.
+	 * @return true if the whole throughput is consumed and there are still
+	 *         waiting messages.
+	 */
+	private boolean processBatches(int throughput) {
+		int batchSize = config.getBatchSize();
+		int total = 0;
+		while ((throughput <= 0 || total < throughput) && isProcessingAvailable()) {
+			int max = throughput > 0 ? Math.min(batchSize, throughput - total) : batchSize;
+			fillBatch(max);
+			if (batchBuffer.isEmpty())
+				break;
+			long start = System.nanoTime();
+			batchBuffer.forEach(x -> recordQueueDelay(x, start));
+			if (!isActive() || !batchCursor.claimAll(batchBuffer.size())) {
+				releaseBatch();
+				break;
+			}
+			try {
+				operateBatch(Collections.unmodifiableList(batchBuffer));
+				batchBuffer.forEach(x -> x.reply(null));
+			} catch (RuntimeException e) {
+				metrics.failed(batchBuffer.size());
+				batchBuffer.forEach(x -> x.fail(e));
+				throw e;
+			} finally {
+				metrics.processed(batchBuffer.size(), System.nanoTime() - start);
+				acknowledgeAll(batchBuffer);
+				total += batchBuffer.size();
+				releaseBatch();
+			}
+		}
+		return throughput > 0 && total >= throughput && isActive() && !isQueueEmpty();
+	}
+
+	/**
+	 * Drains up to {@code max} messages into the batch buffer. The mailbox is
+	 * polled with short parks while lingering, so neither the mailbox nor the
+	 * senders pay for a signal.
+	 */
+	private void fillBatch(int max) {
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.getBatchLingerMillis());
+		while (true) {
+			queueLock.lock();
+			try {
+				if (batchCursor.isClaimed())
+					return;
+				queue.drainTo(batchBuffer, max - batchBuffer.size());
+				batchCursor.publish(batchBuffer.size());
+			} finally {
+				queueLock.unlock();
+			}
+			signalNotFull();
+			long remaining = deadline - System.nanoTime();
+			if (batchBuffer.size() >= max || batchBuffer.isEmpty() || remaining <= 0 || !isActive())
+				return;
+			LockSupport.parkNanos(Math.min(remaining, LINGER_PARK_NANOS));
+		}
+	}
+
+	private void recordQueueDelay(ActorMessage<T> message, long now) {
+		if (message.getEnqueueNanos() != 0)
+			metrics.queueDelayed(now - message.getEnqueueNanos());
+	}
+
+	private void process(ActorMessage<T> message) {
+		try {
+			operateMessage(message);
+		} catch (RuntimeException e) {
+			metrics.failed(1);
+			throw e;
+		} finally {
+			acknowledge(message);
+		}
+	}
+
+	/**
+	 * Puts the part of the in-flight batch that nobody claimed yet back to the
+	 * head of the mailbox, called by the executing thread once it's done with
+	 * the batch or by a terminator before it drains the mailbox.
+	 */
+	@GuardedBy(Actor.Fields.queueLock)
+	void reclaimBatch() {
+		int from = batchCursor.claimRest();
+		if (from < batchCursor.size())
+			queue.prependAll(batchBuffer.subList(from, batchCursor.size()));
+	}
+
+	private void releaseBatch() {
+		queueLock.lock();
+		try {
+			reclaimBatch();
+			batchBuffer.clear();
+			batchCursor.close();
+		} finally {
+			queueLock.unlock();
+		}
+	}
+
+	/**
+	 * ACTIVE -> PASSIVE transition, lets the cluster know so that the threads
+	 * waiting for the topic's termination can be released.
+	 */
+	final void passivate() {
+		if (cb.compareAndSetStatus(Status.ACTIVE, Status.PASSIVE)) {
+			passiveSinceNanos = System.nanoTime();
+			router.nodePassivated(topic);
+		}
+	}
+
+	final boolean isActive() {
+		return Status.ACTIVE.equals(cb.getStatus()) && !Thread.currentThread().isInterrupted();
+	}
+
 	/**
 	 * This method defines that in what conditions actor continue to process waiting
 	 * messages.
@@ -460,6 +1400,47 @@ public abstract class Actor<T>
 	 */
 	public abstract void operate(ActorMessage<T> msg);
 
+	/**
+	 * Called instead of {@code operate} when the {@code batchSize} of the config
+	 * is larger than 1, e.g. to write the messages with a single bulk insert.
+	 * The list is only valid during the call.<br>
+	 * The messages are acknowledged once the method returns or throws, asked
+	 * messages that aren't replied by an override are replied null or fail with
+	 * the thrown exception. primitive
+	 * actors process their values in chunks and don't use it.
+	 * 
+	 * @param messages in their arrival order.
+	 */
+	public void operateBatch(List<ActorMessage<T>> messages) {
+		messages.forEach(this::operateMessage);
+	}
+
+	/**
+	 * Operates an asked message, the returned value completes the future of
+	 * {@code ask(message)}. The default implementation calls {@code operate} and
+	 * replies null.
+	 * 
+	 * @param msg
+	 * @return the reply.
+	 */
+	public Object operateAsk(ActorMessage<T> msg) {
+		operate(msg);
+		return null;
+	}
+
+	private void operateMessage(ActorMessage<T> message) {
+		if (!message.isAsk()) {
+			operate(message);
+			return;
+		}
+		try {
+			message.reply(operateAsk(message));
+		} catch (RuntimeException e) {
+			message.fail(e);
+			throw e;
+		}
+	}
+
 	/**
 	 * This method must be implemented for creations of child actors that's used by
 	 * the {@code divisionStrategy}.
@@ -1,12 +1,20 @@
 package par.core.actor.base.node;
 
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -30,10 +38,16 @@ import par.core.actor.annotations.ThreadSafe;
 import par.core.actor.base.ControlBlock;
 import par.core.actor.base.ControlBlock.Status;
 import par.core.actor.base.Type;
+import par.core.actor.base.node.configs.ActorConfig;
 import par.core.actor.base.node.configs.ClusterConfig;
 import par.core.actor.cache.DelayedCache;
+import par.core.actor.exceptions.CyclicDependencyException;
 import par.core.actor.exceptions.InvalidTopicException;
 import par.core.actor.factories.ExecutorFactory;
+import par.core.actor.factories.IdGeneratorFactory;
+import par.core.actor.ids.IdGenerator;
+import par.core.actor.journal.MailboxJournal;
+import par.core.actor.metrics.MetricsSnapshot;
 import par.core.actor.serializers.JsonSeriliazer;
 import par.core.actor.terminators.ClusterTerminator;
 
@@ -43,6 +57,8 @@ import par.core.actor.terminators.ClusterTerminator;
 public class ActorCluster implements ClusterTerminator, JsonSeriliazer {
 	private static final String CLUSTER_TERMINATED_MESSAGE = " Cluster %s terminated";
 	private static final String ALL_TASKS_ARE_DONE = " All tasks are done!";
+	private static final String MISSING_CODEC = "A messageCodec is required to journal messages of the [%s] topic";
+	private static final String RETIREMENT_FAILED = "Idle node retirement failed";
 
 	@Setter(AccessLevel.PRIVATE)
 	private String name;
@@ -65,6 +81,23 @@ public class ActorCluster implements ClusterTerminator, JsonSeriliazer {
 	@Getter(AccessLevel.PRIVATE)
 	private Lock poolLock;
 
+	// makes the cycle check and the registration of a root actor atomic.
+	@Setter(AccessLevel.PRIVATE)
+	@Getter(AccessLevel.PRIVATE)
+	private Lock topologyLock;
+
+	// active node counters of the topics, used for waiting the termination.
+	@Exclude
+	@Setter(AccessLevel.PRIVATE)
+	@Getter(AccessLevel.PRIVATE)
+	private Map<String, TopicActivity> activities;
+
+	// write-ahead journals of the journaled topics.
+	@Exclude
+	@Setter(AccessLevel.PRIVATE)
+	@Getter(AccessLevel.PRIVATE)
+	private Map<String, MailboxJournal<?>> journals;
+
 	@Setter(AccessLevel.PRIVATE)
 	private DelayedCache cache;
 
@@ -72,6 +105,17 @@ public class ActorCluster implements ClusterTerminator, JsonSeriliazer {
 	@Setter(AccessLevel.PRIVATE)
 	private ExecutorService pool;
 
+	@Exclude
+	@Setter(AccessLevel.PRIVATE)
+	private IdGenerator idGenerator;
+
+	// retires the idle children, started by the first topic that enables it.
+	@Exclude
+	@Setter(AccessLevel.PRIVATE)
+	@Getter(AccessLevel.PRIVATE)
+	@GuardedBy(ActorCluster.Fields.poolLock)
+	private ScheduledExecutorService reaper;
+
 	@Exclude
 	@Setter(AccessLevel.PRIVATE)
 	@Getter(AccessLevel.PRIVATE)
@@ -93,58 +137,258 @@ public class ActorCluster implements ClusterTerminator, JsonSeriliazer {
 		this.logger = LogManager.getLogger(ActorCluster.class);
 		this.futures = new HashMap<>();
 		this.poolLock = new ReentrantLock();
+		this.topologyLock = new ReentrantLock();
+		this.activities = new ConcurrentHashMap<>();
+		this.journals = new ConcurrentHashMap<>();
 		this.router = new RouterNode(this);
-		this.cache = new DelayedCache();
+		this.cache = new DelayedCache(config.getCacheConfig());
 	}
 
 	private final void adjustConfigurations(ClusterConfig config) {
 		this.cb = new ControlBlock(config.isDeamon() ? Type.DEAMON : Type.CLUSTER, Status.ACTIVE, true);
 		this.name = config.getName();
-		this.pool = ExecutorFactory.getExecutor(config.getPoolType(), config.getThreadCount());
+		this.pool = ExecutorFactory.getExecutor(config.getPoolType(), config.getThreadCount(),
+				config.getPriorityAgingMillis());
+		this.idGenerator = IdGeneratorFactory.getIdGenerator(config.getIdGeneratorType());
 	}
 
 	public final int getActiveNodeCount(String topic) {
 		return router.getRootActor(topic).getActiveNodeCount();
 	}
 
+	/**
+	 * @return ACTIVE nodes of all topics, including the nodes waiting for their
+	 *         waitList.
+	 */
 	public final int getActiveNodeCount() {
-		return 0;
+		int result = 0;
+		for (TopicActivity activity : activities.values())
+			result += activity.getActiveCount();
+		return result;
+	}
+
+	/**
+	 * Metrics of all nodes of the topic, taken without stopping the traffic.
+	 * 
+	 * @throws InvalidTopicException
+	 */
+	public final MetricsSnapshot getMetricsSnapshot(String topic) {
+		MetricsSnapshot snapshot = router.getMetricsSnapshot(topic);
+		if (snapshot == null)
+			throw new InvalidTopicException(topic);
+		return snapshot;
+	}
+
+	public final Map<String, MetricsSnapshot> getMetricsSnapshots() {
+		return router.getMetricsSnapshots();
 	}
 
 	public final int getNodeCount(String topic) {
-		int count = 0;
 		Actor<?> actor = this.router.getRootActor(topic);
-		while (actor != null) {
-			count++;
-			actor = actor.getChildActor();
-		}
-		return count;
+		return actor != null ? actor.getNodes().size() : 0;
 	}
 
 	@ThreadSafe
 	@GuardedBy(ActorCluster.Fields.poolLock)
 	public final void executeNode(Actor<?> node) {
-		if (Status.PASSIVE.equals(node.getCb().getStatus())) {
-			node.getCb().setStatus(Status.ACTIVE);
-			poolLock.lock();
-			try {
-				if (futures.containsKey(node.getTopic().getName()))
-					futures.get(node.getTopic().getName()).add(pool.submit(node));
-				else {
-					List<Future<?>> futureList = new ArrayList<>();
-					futureList.add(pool.submit(node));
-					futures.put(node.getTopic().getName(), futureList);
-				}
-			} finally {
-				poolLock.unlock();
+		if (node.getCb().compareAndSetStatus(Status.PASSIVE, Status.ACTIVE)) {
+			getActivity(node.getTopic().getName()).activated();
+			submitWhenReady(node);
+		}
+	}
+
+	/**
+	 * Submits the node once every topic of its waitList is idle. Until then the
+	 * node stays ACTIVE without a thread, it's re-checked by the idle action of
+	 * the first busy dependency.<br>
+	 * Idle actions of an earlier activation might still be queued if the node was
+	 * terminated and re-activated meanwhile, only the first one that finds the
+	 * node ready submits it. A node that is still running isn't submitted, its
+	 * run picks the activation up once it's over.
+	 */
+	private void submitWhenReady(Actor<?> node) {
+		if (!Status.ACTIVE.equals(node.getCb().getStatus()))
+			return;
+		for (String dependency : node.getWaitListTopics()) {
+			TopicActivity activity = getActivity(dependency);
+			if (!activity.isIdle()) {
+				activity.whenIdle(() -> submitWhenReady(node));
+				return;
 			}
 		}
+		if (node.claimSubmission())
+			submitNode(node);
+	}
+
+	/**
+	 * Called once a node of the topic goes from ACTIVE to PASSIVE.
+	 */
+	@ThreadSafe
+	final void nodePassivated(String topic) {
+		getActivity(topic).passivated();
+	}
+
+	private TopicActivity getActivity(String topic) {
+		return activities.computeIfAbsent(topic, TopicActivity::new);
+	}
+
+	/**
+	 * Submits an already ACTIVE node once more, used by the nodes that yield the
+	 * thread after consuming their throughput. The node keeps its submission, so
+	 * a termination and re-activation during the run doesn't submit it twice.
+	 */
+	@ThreadSafe
+	@GuardedBy(ActorCluster.Fields.poolLock)
+	final void rescheduleNode(Actor<?> node) {
+		if (Status.ACTIVE.equals(node.getCb().getStatus()))
+			submitNode(node);
+		else
+			nodeCompleted(node);
+	}
+
+	/**
+	 * Called once a run of the node is over and it isn't rescheduled, after the
+	 * node is passivated. The node is submitted again if it was re-activated
+	 * while it was still running.
+	 */
+	@ThreadSafe
+	@GuardedBy(ActorCluster.Fields.poolLock)
+	final void nodeCompleted(Actor<?> node) {
+		node.releaseSubmission();
+		submitWhenReady(node);
+	}
+
+	/**
+	 * The futures are only kept to cancel the running tasks on abort, the
+	 * completed ones are dropped on every submit so the lists don't grow for the
+	 * lifetime of the cluster.
+	 */
+	private void submitNode(Actor<?> node) {
+		poolLock.lock();
+		try {
+			List<Future<?>> futureList = futures.computeIfAbsent(node.getTopic().getName(), x -> new ArrayList<>());
+			futureList.removeIf(Future::isDone);
+			futureList.add(submitToPool(node));
+		} finally {
+			poolLock.unlock();
+		}
+	}
+
+	/**
+	 * When a node is (re)activated by a worker of our own {@code FORK_JOIN} pool
+	 * the task is forked into that worker's local deque instead of the shared
+	 * submission queue, idle workers steal it from there.<br>
+	 * Note that cancelling a {@code ForkJoinTask} doesn't interrupt the running
+	 * thread.
+	 */
+	private Future<?> submitToPool(Actor<?> node) {
+		if (pool instanceof ForkJoinPool && ForkJoinTask.getPool() == pool)
+			return ForkJoinTask.adapt(node).fork();
+		return pool.submit(node);
 	}
 
 	@ThreadSafe
-	@GuardedBy("concurrentHashMap")
+	@GuardedBy(ActorCluster.Fields.topologyLock)
 	public final <T> void addRootActor(Actor<T> node) {
-		router.addRootActor(node.getTopic(), node);
+		topologyLock.lock();
+		try {
+			checkDependencies(node);
+			router.addRootActor(node.getTopic(), node);
+		} finally {
+			topologyLock.unlock();
+		}
+		node.recoverJournal();
+		if (node.getIdleRetirementMillis() > 0)
+			startReaper();
+	}
+
+	/**
+	 * The waitLists of the root actors must form a DAG, otherwise the nodes of
+	 * the cycle would wait for each other forever. Dependencies that aren't added
+	 * yet are checked once they are added.
+	 * 
+	 * @throws CyclicDependencyException
+	 */
+	@GuardedBy(ActorCluster.Fields.topologyLock)
+	private void checkDependencies(Actor<?> node) {
+		List<String> path = new ArrayList<>();
+		path.add(node.getTopic().getName());
+		findCycle(node.getTopic().getName(), node.getWaitListTopics(), path, new HashSet<>());
+	}
+
+	private void findCycle(String origin, List<String> dependencies, List<String> path, Set<String> visited) {
+		for (String dependency : dependencies) {
+			path.add(dependency);
+			if (origin.equals(dependency))
+				throw new CyclicDependencyException(path);
+			Actor<?> root = router.getRootActor(dependency);
+			if (root != null && visited.add(dependency))
+				findCycle(origin, root.getWaitListTopics(), path, visited);
+			path.remove(path.size() - 1);
+		}
+	}
+
+	private void startReaper() {
+		poolLock.lock();
+		try {
+			if (reaper != null)
+				return;
+			reaper = Executors.newSingleThreadScheduledExecutor(x -> {
+				Thread thread = new Thread(x, getName() + "-reaper");
+				thread.setDaemon(true);
+				return thread;
+			});
+			long period = config.getIdleCheckMillis();
+			reaper.scheduleWithFixedDelay(this::retireIdleNodes, period, period, TimeUnit.MILLISECONDS);
+		} finally {
+			poolLock.unlock();
+		}
+	}
+
+	private void retireIdleNodes() {
+		try {
+			router.retireIdleNodes();
+		} catch (Exception e) {
+			// a failing run must not cancel the next ones.
+			logger.error(RETIREMENT_FAILED, e);
+		}
+	}
+
+	private void stopReaper() {
+		poolLock.lock();
+		try {
+			if (reaper != null)
+				reaper.shutdownNow();
+			reaper = null;
+		} finally {
+			poolLock.unlock();
+		}
+	}
+
+	/**
+	 * Opens the journal of the topic under the cluster's journal directory, the
+	 * same journal is shared by all nodes of the topic.
+	 */
+	final <T> MailboxJournal<T> openJournal(String topic, ActorConfig<T> actorConfig) {
+		if (actorConfig.getMessageCodec() == null)
+			throw new IllegalArgumentException(String.format(MISSING_CODEC, topic));
+		MailboxJournal<T> journal = new MailboxJournal<>(
+				Paths.get(config.getJournalDirectory(), topic.replaceAll("[^A-Za-z0-9_-]", "_")),
+				actorConfig.getMessageCodec(), actorConfig.getJournalSyncMode());
+		journals.put(topic, journal);
+		return journal;
+	}
+
+	/**
+	 * @return the journal of the topic or null if the topic isn't journaled.
+	 */
+	final MailboxJournal<?> getJournal(String topic) {
+		return journals.get(topic);
+	}
+
+	private void closeJournals() {
+		journals.values().forEach(MailboxJournal::close);
+		journals.clear();
 	}
 
 	@ThreadSafe
@@ -203,53 +447,79 @@ public class ActorCluster implements ClusterTerminator, JsonSeriliazer {
 		} catch (Exception e) {
 			e.printStackTrace();
 		} finally {
-			if (isPermenent)
+			if (isPermenent) {
+				stopReaper();
 				result.put("Pool_Waiting_Queue", terminateThreadPool());
+				closeJournals();
+			}
 			this.cb.setStatus(Status.PASSIVE);
 			if (showInfo)
 				logger.info(String.format(CLUSTER_TERMINATED_MESSAGE, getName()));
-			
-			System.gc();
 		}
 		return result;
 	}
 
+	/**
+	 * Blocks until every node of every topic is PASSIVE.
+	 */
 	public final void waitForTermination(boolean showInfo) throws Exception {
-
 		List<String> allTopics = router.getAllTopics();
-		System.out.println(allTopics);
 		for (int i = 0; i < allTopics.size(); i++) {
 			waitForTermination(allTopics.get(i), showInfo);
 		}
 		if (showInfo)
 			logger.info(ALL_TASKS_ARE_DONE);
-		
-		System.gc();
 	}
 
+	/**
+	 * Blocks until every node of every topic is PASSIVE or the waiting time
+	 * elapses.
+	 * 
+	 * @return false if the waiting time elapsed before all topics terminated.
+	 */
+	public final boolean waitForTermination(long timeout, TimeUnit unit, boolean showInfo) throws Exception {
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		List<String> allTopics = router.getAllTopics();
+		for (int i = 0; i < allTopics.size(); i++) {
+			if (!waitForTermination(allTopics.get(i), deadline - System.nanoTime(), TimeUnit.NANOSECONDS, showInfo))
+				return false;
+		}
+		if (showInfo)
+			logger.info(ALL_TASKS_ARE_DONE);
+		return true;
+	}
+
+	/**
+	 * Blocks until every node of the topic is PASSIVE. the waiting thread is
+	 * woken up by the node that passivates last, there is no polling.
+	 */
 	public final boolean waitForTermination(String topic, boolean showInfo) throws Exception {
 		if (!router.isTopicExists(topic))
 			throw new InvalidTopicException(topic);
 
-		Actor<?> rootActor = router.getRootActor(topic);
-		boolean isAllTerminated = true;
-		do {
-			isAllTerminated = true;
-			Actor<?> temp;
-			temp = rootActor;
-			while (temp != null) {
-				isAllTerminated = isAllTerminated && Status.PASSIVE.equals(temp.getCb().getStatus());
-				temp = temp.getChildActor();
-			}
-			// sleep for 5ms
-			Thread.sleep(5);
-		} while (!isAllTerminated);
+		getActivity(topic).awaitIdle();
 		if (showInfo)
 			logger.info(topic + ALL_TASKS_ARE_DONE);
-		System.gc();
 		return true;
 	}
 
+	/**
+	 * Blocks until every node of the topic is PASSIVE or the waiting time
+	 * elapses.
+	 * 
+	 * @return false if the waiting time elapsed before the topic terminated.
+	 */
+	public final boolean waitForTermination(String topic, long timeout, TimeUnit unit, boolean showInfo)
+			throws Exception {
+		if (!router.isTopicExists(topic))
+			throw new InvalidTopicException(topic);
+
+		boolean isTerminated = getActivity(topic).awaitIdle(timeout, unit);
+		if (isTerminated && showInfo)
+			logger.info(topic + ALL_TASKS_ARE_DONE);
+		return isTerminated;
+	}
+
 	@Override
 	public final String toJson() {
 		Gson gson = new GsonBuilder().create();
@@ -0,0 +1,89 @@
+package par.core.actor.base.node;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import par.core.actor.annotations.GuardedBy;
+import par.core.actor.annotations.ThreadSafe;
+
+/**
+ * Position of the executing thread in the batch it drained from the mailbox.
+ * <br>
+ * The executing thread claims the drained messages one by one, a terminator
+ * claims the rest at once. So every drained message is either processed or
+ * returned by the termination, but never both or neither.<br>
+ * The batch is published, claimed by a terminator and closed while holding
+ * the queue lock, {@code next} and {@code claimAll} are lock free.
+ *
+ * @author osman.yasal
+ *
+ */
+@ThreadSafe
+final class BatchCursor {
+
+	private final AtomicInteger next;
+
+	// number of the drained messages, 0 while no batch is in flight.
+	@GuardedBy(Actor.Fields.queueLock)
+	private int size;
+
+	BatchCursor() {
+		this.next = new AtomicInteger();
+	}
+
+	/**
+	 * Publishes the drained messages of the batch.
+	 */
+	@GuardedBy(Actor.Fields.queueLock)
+	void publish(int size) {
+		this.size = size;
+	}
+
+	/**
+	 * Only meaningful before the executing thread takes any message.
+	 *
+	 * @return true if a terminator claimed the batch, nothing may be added to
+	 *         it anymore.
+	 */
+	@GuardedBy(Actor.Fields.queueLock)
+	boolean isClaimed() {
+		return next.get() != 0;
+	}
+
+	/**
+	 * @return index of the message the executing thread owns from now on, the
+	 *         batch is over once it reaches the size.
+	 */
+	int next() {
+		return next.getAndIncrement();
+	}
+
+	/**
+	 * The executing thread takes the whole batch at once.
+	 *
+	 * @return false if a terminator claimed it already.
+	 */
+	boolean claimAll(int size) {
+		return next.compareAndSet(0, size);
+	}
+
+	/**
+	 * Claims the messages that nobody took yet.
+	 *
+	 * @return index of the first claimed message, the size if there is none.
+	 */
+	@GuardedBy(Actor.Fields.queueLock)
+	int claimRest() {
+		return Math.min(next.getAndSet(size), size);
+	}
+
+	@GuardedBy(Actor.Fields.queueLock)
+	int size() {
+		return size;
+	}
+
+	@GuardedBy(Actor.Fields.queueLock)
+	void close() {
+		size = 0;
+		next.set(0);
+	}
+}
@@ -0,0 +1,106 @@
+package par.core.actor.base.node;
+
+import par.core.actor.annotations.GuardedBy;
+import par.core.actor.annotations.ThreadSafe;
+import par.core.actor.base.ActorMessage;
+import par.core.actor.base.node.configs.ActorConfig;
+import par.core.actor.mailbox.IntRingMailbox;
+
+/**
+ * {@code Actor<Integer>} that keeps its waiting values in a {@code int} ring
+ * buffer instead of {@code ActorMessage} objects.<br>
+ * {@code send(int)} and {@code load(int)} don't allocate as long as the
+ * value is enqueued to this node, once the division strategy or the capacity
+ * gets involved the value is boxed and takes the generic path. Values sent as
+ * {@code ActorMessage} are unboxed into the same ring buffer.<br>
+ * Message objects are not kept, so journaling and asking are not supported. mailboxType and
+ * the spill settings are ignored.
+ * 
+ * @author osman.yasal
+ *
+ */
+@ThreadSafe
+public abstract class IntActor extends PrimitiveActor<Integer, int[]> {
+
+	private final IntRingMailbox mailbox;
+
+	protected IntActor(ActorConfig<Integer> config) {
+		this(config, new IntRingMailbox());
+	}
+
+	private IntActor(ActorConfig<Integer> config, IntRingMailbox mailbox) {
+		super(config, mailbox);
+		this.mailbox = mailbox;
+	}
+
+	/**
+	 * Boxing-free counterpart of {@code load(message)}.
+	 */
+	public final void load(int value) {
+		if (!enqueueDirectly(value, false))
+			load(new ActorMessage<>(value));
+	}
+
+	public final void loadAll(int[] values) {
+		for (int i = enqueueDirectly(values, false); i < values.length; i++)
+			load(values[i]);
+	}
+
+	/**
+	 * Boxing-free counterpart of {@code sendByLocking(message)}.
+	 */
+	@ThreadSafe
+	@GuardedBy(Actor.Fields.queueLock)
+	public final void send(int value) {
+		if (!enqueueDirectly(value, true))
+			sendByLocking(new ActorMessage<>(value));
+	}
+
+	/**
+	 * Boxing-free counterpart of {@code trySendByLocking(message)}.
+	 */
+	@ThreadSafe
+	@GuardedBy(Actor.Fields.queueLock)
+	public final boolean trySend(int value) {
+		return enqueueDirectly(value, true) || trySendByLocking(new ActorMessage<>(value));
+	}
+
+	@ThreadSafe
+	@GuardedBy(Actor.Fields.queueLock)
+	public final void sendAll(int[] values) {
+		for (int i = enqueueDirectly(values, true); i < values.length; i++)
+			send(values[i]);
+	}
+
+	@GuardedBy(Actor.Fields.queueLock)
+	private boolean enqueueDirectly(int value, boolean isSending) {
+		lockQueue();
+		try {
+			if (!isDirectEnqueueAvailable())
+				return false;
+			mailbox.offerInt(value);
+			enqueued(1, isSending);
+			return true;
+		} finally {
+			unlockQueue();
+		}
+	}
+
+	@Override
+	final void operateAt(int[] values, int index) {
+		operate(values[index]);
+	}
+
+	@Override
+	public final void operate(ActorMessage<Integer> msg) {
+		operate(msg.getMessage().intValue());
+	}
+
+	/**
+	 * Boxing-free counterpart of {@code operate(msg)}.
+	 */
+	public abstract void operate(int value);
+
+	@Override
+	public abstract IntActor generateChildActor();
+}
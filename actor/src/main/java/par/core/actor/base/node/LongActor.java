@@ -0,0 +1,106 @@
+package par.core.actor.base.node;
+
+import par.core.actor.annotations.GuardedBy;
+import par.core.actor.annotations.ThreadSafe;
+import par.core.actor.base.ActorMessage;
+import par.core.actor.base.node.configs.ActorConfig;
+import par.core.actor.mailbox.LongRingMailbox;
+
+/**
+ * {@code Actor<Long>} that keeps its waiting values in a {@code long} ring
+ * buffer instead of {@code ActorMessage} objects.<br>
+ * {@code send(long)} and {@code load(long)} don't allocate as long as the
+ * value is enqueued to this node, once the division strategy or the capacity
+ * gets involved the value is boxed and takes the generic path. Values sent as
+ * {@code ActorMessage} are unboxed into the same ring buffer.<br>
+ * Message objects are not kept, so journaling and asking are not supported. mailboxType and
+ * the spill settings are ignored.
+ * 
+ * @author osman.yasal
+ *
+ */
+@ThreadSafe
+public abstract class LongActor extends PrimitiveActor<Long, long[]> {
+
+	private final LongRingMailbox mailbox;
+
+	protected LongActor(ActorConfig<Long> config) {
+		this(config, new LongRingMailbox());
+	}
+
+	private LongActor(ActorConfig<Long> config, LongRingMailbox mailbox) {
+		super(config, mailbox);
+		this.mailbox = mailbox;
+	}
+
+	/**
+	 * Boxing-free counterpart of {@code load(message)}.
+	 */
+	public final void load(long value) {
+		if (!enqueueDirectly(value, false))
+			load(new ActorMessage<>(value));
+	}
+
+	public final void loadAll(long[] values) {
+		for (int i = enqueueDirectly(values, false); i < values.length; i++)
+			load(values[i]);
+	}
+
+	/**
+	 * Boxing-free counterpart of {@code sendByLocking(message)}.
+	 */
+	@ThreadSafe
+	@GuardedBy(Actor.Fields.queueLock)
+	public final void send(long value) {
+		if (!enqueueDirectly(value, true))
+			sendByLocking(new ActorMessage<>(value));
+	}
+
+	/**
+	 * Boxing-free counterpart of {@code trySendByLocking(message)}.
+	 */
+	@ThreadSafe
+	@GuardedBy(Actor.Fields.queueLock)
+	public final boolean trySend(long value) {
+		return enqueueDirectly(value, true) || trySendByLocking(new ActorMessage<>(value));
+	}
+
+	@ThreadSafe
+	@GuardedBy(Actor.Fields.queueLock)
+	public final void sendAll(long[] values) {
+		for (int i = enqueueDirectly(values, true); i < values.length; i++)
+			send(values[i]);
+	}
+
+	@GuardedBy(Actor.Fields.queueLock)
+	private boolean enqueueDirectly(long value, boolean isSending) {
+		lockQueue();
+		try {
+			if (!isDirectEnqueueAvailable())
+				return false;
+			mailbox.offerLong(value);
+			enqueued(1, isSending);
+			return true;
+		} finally {
+			unlockQueue();
+		}
+	}
+
+	@Override
+	final void operateAt(long[] values, int index) {
+		operate(values[index]);
+	}
+
+	@Override
+	public final void operate(ActorMessage<Long> msg) {
+		operate(msg.getMessage().longValue());
+	}
+
+	/**
+	 * Boxing-free counterpart of {@code operate(msg)}.
+	 */
+	public abstract void operate(long value);
+
+	@Override
+	public abstract LongActor generateChildActor();
+}
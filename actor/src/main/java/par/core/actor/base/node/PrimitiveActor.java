@@ -0,0 +1,180 @@
+package par.core.actor.base.node;
+
+import java.lang.reflect.Array;
+
+import par.core.actor.annotations.GuardedBy;
+import par.core.actor.annotations.ThreadSafe;
+import par.core.actor.base.node.configs.ActorConfig;
+import par.core.actor.journal.JournalSyncMode;
+import par.core.actor.mailbox.RingMailbox;
+
+/**
+ * Common part of the primitive actors, the chunked processing loop, the
+ * reclaiming of the unprocessed values and the termination work on the
+ * primitive array type {@code A}.<br>
+ * The subclasses only keep the boxing-free accessors of their primitive type.
+ *
+ * @author osman.yasal
+ *
+ * @param <T> : boxed value type.
+ * @param <A> : primitive array type.
+ */
+@ThreadSafe
+abstract class PrimitiveActor<T, A> extends Actor<T> {
+
+	private static final String UNSUPPORTED_JOURNAL = "Primitive actors can't journal the [%s] topic";
+	private static final int BATCH_SIZE = 256;
+
+	private final RingMailbox<T, A> mailbox;
+
+	// local buffer of the drained values, only touched by the executing thread.
+	private final A batchBuffer;
+
+	// hands the unprocessed part of the batch buffer to a terminator.
+	private final BatchCursor batchCursor;
+
+	PrimitiveActor(ActorConfig<T> config, RingMailbox<T, A> mailbox) {
+		super(config, mailbox);
+		if (!JournalSyncMode.OFF.equals(config.getJournalSyncMode()))
+			throw new IllegalArgumentException(String.format(UNSUPPORTED_JOURNAL, config.getTopic().getName()));
+		this.mailbox = mailbox;
+		this.batchBuffer = mailbox.newBuffer(BATCH_SIZE);
+		this.batchCursor = new BatchCursor();
+	}
+
+	/**
+	 * Runs {@code operate} on the value at {@code index} of the array.
+	 */
+	abstract void operateAt(A values, int index);
+
+	/**
+	 * Enqueues the values with a single lock acquisition until the division
+	 * strategy or the capacity gets involved.
+	 *
+	 * @return the number of enqueued values.
+	 */
+	@GuardedBy(Actor.Fields.queueLock)
+	final int enqueueDirectly(A values, boolean isSending) {
+		int length = Array.getLength(values);
+		int index = 0;
+		lockQueue();
+		try {
+			while (index < length && isDirectEnqueueAvailable())
+				mailbox.offerFrom(values, index++);
+			enqueued(index, isSending);
+			return index;
+		} finally {
+			unlockQueue();
+		}
+	}
+
+	/**
+	 * Bookkeeping after the values are put to the mailbox directly.
+	 */
+	@GuardedBy(Actor.Fields.queueLock)
+	final void enqueued(int count, boolean isSending) {
+		getMetrics().arrived(count);
+		if (count > 0 && (isSending || isRetired()))
+			sendExecutionRequest();
+	}
+
+	@Override
+	final boolean processMailbox(int throughput) {
+		int limit = throughput > 0 ? throughput : Integer.MAX_VALUE;
+		int processed = 0;
+		while (processed < limit && isActive()) {
+			int count;
+			lockQueue();
+			try {
+				count = mailbox.drainTo(batchBuffer, Math.min(BATCH_SIZE, limit - processed));
+				batchCursor.publish(count);
+			} finally {
+				unlockQueue();
+			}
+			if (count == 0)
+				break;
+			signalNotFull();
+			long start = System.nanoTime();
+			try {
+				int index;
+				while (isActive() && (index = batchCursor.next()) < count) {
+					processed++;
+					try {
+						operateAt(batchBuffer, index);
+					} finally {
+						long end = System.nanoTime();
+						getMetrics().processed(1, end - start);
+						start = end;
+					}
+				}
+			} catch (RuntimeException e) {
+				getMetrics().failed(1);
+				throw e;
+			} finally {
+				releaseBatch();
+			}
+		}
+		return throughput > 0 && processed == limit && isActive() && !isQueueEmpty();
+	}
+
+	@Override
+	@GuardedBy(Actor.Fields.queueLock)
+	final void reclaimBatch() {
+		int from = batchCursor.claimRest();
+		mailbox.prependFrom(batchBuffer, from, batchCursor.size());
+	}
+
+	private void releaseBatch() {
+		lockQueue();
+		try {
+			reclaimBatch();
+			batchCursor.close();
+		} finally {
+			unlockQueue();
+		}
+	}
+
+	/**
+	 * Same as {@code terminateActor(isRecursively)} but returns the waiting
+	 * values without boxing them.
+	 */
+	@SuppressWarnings("unchecked")
+	public final A terminateValues(boolean isRecursively) {
+		stopNode();
+		// before the nodes are drained, so the strategy can't deliver to them anymore.
+		A held = mailbox.toValues(terminateStrategy(isRecursively));
+		A values;
+		lockQueue();
+		try {
+			reclaimBatch();
+			values = mailbox.drainValues();
+		} finally {
+			unlockQueue();
+		}
+		signalNotFull();
+		if (!isRecursively)
+			return concat(values, held);
+		for (Actor<T> worker : getPoolWorkers())
+			values = concat(values, ((PrimitiveActor<T, A>) worker).terminateValues(isRecursively));
+		PrimitiveActor<T, A> child = (PrimitiveActor<T, A>) getChildActor();
+		if (child != null)
+			values = concat(values, child.terminateValues(isRecursively));
+		return concat(values, held);
+	}
+
+	private A concat(A first, A second) {
+		int firstLength = Array.getLength(first);
+		int secondLength = Array.getLength(second);
+		if (secondLength == 0)
+			return first;
+		A result = mailbox.newBuffer(firstLength + secondLength);
+		System.arraycopy(first, 0, result, 0, firstLength);
+		System.arraycopy(second, 0, result, firstLength, secondLength);
+		return result;
+	}
+
+	@Override
+	final boolean isAskSupported() {
+		return false;
+	}
+}
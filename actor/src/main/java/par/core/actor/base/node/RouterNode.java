@@ -7,6 +7,7 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.logging.log4j.LogManager;
@@ -24,13 +25,19 @@ import lombok.experimental.Accessors;
 import lombok.experimental.FieldNameConstants;
 import par.core.actor.annotations.GuardedBy;
 import par.core.actor.annotations.ThreadSafe;
+import par.core.actor.base.ActorMessage;
 import par.core.actor.base.ControlBlock;
 import par.core.actor.base.ControlBlock.Status;
 import par.core.actor.base.Topic;
 import par.core.actor.base.Type;
+import par.core.actor.base.node.configs.ActorConfig;
 import par.core.actor.cache.Cache;
+import par.core.actor.exceptions.MailboxOverflowException;
 import par.core.actor.exceptions.OccupiedTopicException;
 import par.core.actor.factories.ControlBlockFactory;
+import par.core.actor.ids.IdGenerator;
+import par.core.actor.journal.MailboxJournal;
+import par.core.actor.metrics.MetricsSnapshot;
 import par.core.actor.serializers.JsonSeriliazer;
 import par.core.actor.terminators.RouterTerminator;
 
@@ -53,6 +60,12 @@ public final class RouterNode implements RouterTerminator, JsonSeriliazer {
 	@Getter(value = AccessLevel.PRIVATE)
 	private Map<String, Actor<?>> rootActors;
 
+	// subscribers of the published topics, copied on write so the publishers
+	// never lock while subscribers join or leave.
+	@Setter(value = AccessLevel.PRIVATE)
+	@Getter(value = AccessLevel.PRIVATE)
+	private Map<String, CopyOnWriteArrayList<Actor<?>>> subscribers;
+
 	@Exclude
 	@Setter(value = AccessLevel.PRIVATE)
 	@Getter(value = AccessLevel.PRIVATE)
@@ -71,7 +84,8 @@ public final class RouterNode implements RouterTerminator, JsonSeriliazer {
 		this.logger = LogManager.getLogger(RouterNode.class);
 		this.cb = ControlBlockFactory.createCb(Type.ROUTER);
 		this.cluster = cluster;
-		this.actorCountMap = new HashMap<>();
+		this.actorCountMap = new ConcurrentHashMap<>();
+		this.subscribers = new ConcurrentHashMap<>();
 
 		// rootActors must be ordered because of watinig-actors @see Actor.class
 		this.rootActors = new ConcurrentHashMap<>(new LinkedHashMap<>());
@@ -107,11 +121,124 @@ public final class RouterNode implements RouterTerminator, JsonSeriliazer {
 		return result;
 	}
 
+	/**
+	 * @return the merged metrics of all nodes of the topic, null if the topic
+	 *         isn't registered.
+	 */
+	@ThreadSafe
+	public final MetricsSnapshot getMetricsSnapshot(String topic) {
+		Actor<?> root = getRootActor(topic);
+		return root != null ? root.getNodeStackMetricsSnapshot() : null;
+	}
+
+	/**
+	 * @return metrics of every registered topic.
+	 */
+	@ThreadSafe
+	public final Map<String, MetricsSnapshot> getMetricsSnapshots() {
+		Map<String, MetricsSnapshot> result = new LinkedHashMap<>();
+		for (String topic : getAllTopics()) {
+			MetricsSnapshot snapshot = getMetricsSnapshot(topic);
+			if (snapshot != null)
+				result.put(topic, snapshot);
+		}
+		return result;
+	}
+
+	/**
+	 * Adds the actor to the subscribers of the published topic, it receives the
+	 * messages published after this call.
+	 */
+	@ThreadSafe
+	@GuardedBy("concurrentHashMap")
+	public final <T> void subscribe(Topic topic, Actor<T> subscriber) {
+		// added inside compute, a concurrent unsubscribe can't drop the list meanwhile.
+		subscribers.compute(topic.getName(), (key, list) -> {
+			CopyOnWriteArrayList<Actor<?>> result = list != null ? list : new CopyOnWriteArrayList<>();
+			if (result.stream().noneMatch(x -> x == subscriber))
+				result.add(subscriber);
+			return result;
+		});
+	}
+
+	@ThreadSafe
+	@GuardedBy("concurrentHashMap")
+	public final <T> boolean unsubscribe(Topic topic, Actor<T> subscriber) {
+		boolean[] isRemoved = new boolean[1];
+		subscribers.computeIfPresent(topic.getName(), (key, list) -> {
+			// by identity, the Lombok equals of an actor walks the whole cluster.
+			isRemoved[0] = list.removeIf(x -> x == subscriber);
+			return list.isEmpty() ? null : list;
+		});
+		return isRemoved[0];
+	}
+
+	/**
+	 * Removes the node from the subscribers of every topic, called once it's
+	 * terminated or retired.
+	 */
+	@ThreadSafe
+	@GuardedBy("concurrentHashMap")
+	final void unsubscribeAll(Actor<?> subscriber) {
+		for (String topic : subscribers.keySet())
+			unsubscribe(new Topic(topic), subscriber);
+	}
+
+	public final List<Actor<?>> getSubscribers(Topic topic) {
+		List<Actor<?>> list = subscribers.get(topic.getName());
+		return list != null ? Collections.unmodifiableList(list) : Collections.emptyList();
+	}
+
+	/**
+	 * Sends the payload to every current subscriber of the topic. The payload is
+	 * shared, not copied, so it must be immutable. every subscriber gets its own
+	 * lightweight {@code ActorMessage} that wraps it.<br>
+	 * Backpressure is per subscriber: its capacity and overflow policy decide on
+	 * its own mailbox, a rejecting subscriber doesn't stop the others. A BLOCK
+	 * policy delays the publisher though.
+	 * 
+	 * @param topic
+	 * @param payload
+	 * @return the number of subscribers that accepted the message.
+	 */
+	@ThreadSafe
+	@SuppressWarnings("unchecked")
+	public final <T> int publish(Topic topic, T payload) {
+		List<Actor<?>> list = subscribers.get(topic.getName());
+		if (list == null)
+			return 0;
+		int result = 0;
+		// iterates over a snapshot, joining and leaving subscribers don't interfere.
+		for (Actor<?> subscriber : list) {
+			try {
+				if (((Actor<T>) subscriber).trySendByLocking(new ActorMessage<>(payload)))
+					result++;
+			} catch (MailboxOverflowException e) {
+				// rejected by a node picked by the subscriber's division strategy.
+			}
+		}
+		return result;
+	}
+
 	protected final void incrementActorCount(Topic topic) {
-		if (this.actorCountMap.containsKey(topic.getName()))
-			this.actorCountMap.put(topic.getName(), this.actorCountMap.get(topic.getName()) + 1);
-		else
-			this.actorCountMap.put(topic.getName(), 1);
+		this.actorCountMap.merge(topic.getName(), 1, Integer::sum);
+	}
+
+	protected final void decrementActorCount(Topic topic) {
+		this.actorCountMap.computeIfPresent(topic.getName(), (key, count) -> count > 1 ? count - 1 : null);
+	}
+
+	/**
+	 * Retires the idle children and pool workers of every topic.
+	 * 
+	 * @return the number of retired nodes.
+	 */
+	final int retireIdleNodes() {
+		long now = System.nanoTime();
+		int result = 0;
+		for (Actor<?> root : rootActors.values())
+			result += root.retireIdleNodes(now);
+		return result;
 	}
 
 	@ThreadSafe
@@ -120,6 +247,37 @@ public final class RouterNode implements RouterTerminator, JsonSeriliazer {
 		cluster.executeNode(node);
 	}
 
+	@ThreadSafe
+	final void nodePassivated(Topic topic) {
+		cluster.nodePassivated(topic.getName());
+	}
+
+	@ThreadSafe
+	@GuardedBy(ActorCluster.Fields.poolLock)
+	final void rescheduleNode(Actor<?> node) {
+		cluster.rescheduleNode(node);
+	}
+
+	@ThreadSafe
+	@GuardedBy(ActorCluster.Fields.poolLock)
+	final void nodeCompleted(Actor<?> node) {
+		cluster.nodeCompleted(node);
+	}
+
+	final <T> MailboxJournal<T> openJournal(Topic topic, ActorConfig<T> config) {
+		return cluster.openJournal(topic.getName(), config);
+	}
+
+	@ThreadSafe
+	final MailboxJournal<?> getJournal(Topic topic) {
+		return cluster.getJournal(topic.getName());
+	}
+
+	@ThreadSafe
+	public final IdGenerator getIdGenerator() {
+		return cluster.getIdGenerator();
+	}
+
 	@ThreadSafe
 	public final Cache getDelayedCache() {
 		return cluster.getCache();
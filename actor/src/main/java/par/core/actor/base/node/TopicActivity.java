@@ -0,0 +1,146 @@
+package par.core.actor.base.node;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import par.core.actor.annotations.GuardedBy;
+import par.core.actor.annotations.ThreadSafe;
+
+/**
+ * Counts the ACTIVE nodes of a topic and wakes up the waiting threads once the
+ * last node goes PASSIVE.<br>
+ * Activation and passivation only touch an atomic counter, the lock is taken
+ * by the waiters and by the node that makes the topic idle.<br>
+ * Idle actions let the dependent topics wait without holding a thread.<br>
+ * Each activation is paired with exactly one passivation by the status CAS of
+ * the node, a passivation without an activation is a bug and fails loudly.
+ * 
+ * @author osman.yasal
+ *
+ */
+@ThreadSafe
+final class TopicActivity {
+
+	private static final String UNPAIRED_PASSIVATION = "A node of the [%s] topic is passivated without an activation";
+
+	private final String topic;
+
+	private final Logger logger;
+
+	private final AtomicInteger activeCount;
+
+	private final Lock lock;
+
+	@GuardedBy("lock")
+	private final Condition idle;
+
+	// run once by the node that makes the topic idle.
+	private final Queue<Runnable> idleActions;
+
+	TopicActivity(String topic) {
+		this.topic = topic;
+		this.logger = LogManager.getLogger(TopicActivity.class);
+		this.activeCount = new AtomicInteger();
+		this.lock = new ReentrantLock();
+		this.idle = lock.newCondition();
+		this.idleActions = new ConcurrentLinkedQueue<>();
+	}
+
+	void activated() {
+		activeCount.incrementAndGet();
+	}
+
+	/**
+	 * @throws IllegalStateException if the topic has no ACTIVE node, the counter
+	 *                               is left as it is.
+	 */
+	void passivated() {
+		int count = activeCount.getAndUpdate(x -> x > 0 ? x - 1 : x);
+		if (count <= 0) {
+			String message = String.format(UNPAIRED_PASSIVATION, topic);
+			logger.error(message);
+			throw new IllegalStateException(message);
+		}
+		if (count == 1) {
+			signalIdle();
+			runIdleActions();
+		}
+	}
+
+	/**
+	 * Runs the action once the topic is idle, right away if it's already idle.
+	 * The action is queued first and the state is checked afterwards, so a
+	 * concurrent passivation can't miss it.
+	 */
+	void whenIdle(Runnable action) {
+		idleActions.add(action);
+		if (isIdle())
+			runIdleActions();
+	}
+
+	private void runIdleActions() {
+		Runnable action;
+		while (isIdle() && (action = idleActions.poll()) != null)
+			action.run();
+	}
+
+	int getActiveCount() {
+		return activeCount.get();
+	}
+
+	boolean isIdle() {
+		return activeCount.get() == 0;
+	}
+
+	void awaitIdle() throws InterruptedException {
+		if (isIdle())
+			return;
+		lock.lock();
+		try {
+			while (!isIdle())
+				idle.await();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @param timeout
+	 * @param unit
+	 * @return false if the waiting time elapsed before the topic became idle.
+	 * @throws InterruptedException
+	 */
+	boolean awaitIdle(long timeout, TimeUnit unit) throws InterruptedException {
+		if (isIdle())
+			return true;
+		long nanos = unit.toNanos(timeout);
+		lock.lock();
+		try {
+			while (!isIdle()) {
+				if (nanos <= 0)
+					return false;
+				nanos = idle.awaitNanos(nanos);
+			}
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void signalIdle() {
+		lock.lock();
+		try {
+			idle.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+}
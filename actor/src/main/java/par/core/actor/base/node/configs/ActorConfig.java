@@ -3,7 +3,6 @@ package par.core.actor.base.node.configs;
 import java.util.List;
 
 import lombok.AccessLevel;
-import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.Setter;
 import lombok.experimental.Accessors;
@@ -12,11 +11,14 @@ import par.core.actor.base.ActorPriority;
 import par.core.actor.base.Topic;
 import par.core.actor.base.node.RouterNode;
 import par.core.actor.divisionstrategies.DivisionStrategy;
+import par.core.actor.factories.MailboxFactory.MailboxTypes;
+import par.core.actor.journal.JournalSyncMode;
+import par.core.actor.mailbox.OverflowPolicy;
+import par.core.actor.serializers.MessageCodec;
 
 @Immutable
 @Data
 @Accessors(chain = true)
-@AllArgsConstructor
 public class ActorConfig<T> {
 
 	@Setter(AccessLevel.PRIVATE)
@@ -33,4 +35,66 @@ public class ActorConfig<T> {
 
 	@Setter(AccessLevel.PRIVATE)
 	private List<Topic> waitList;
+
+	// optional settings, can be changed before the actor is created.
+	private MailboxTypes mailboxType;
+
+	// max messages processed per activation, 0 means until the mailbox is empty.
+	private int throughput;
+
+	// max messages handed to operateBatch at once, 1 means one by one.
+	private int batchSize;
+
+	// max waiting time to fill a batch once it's started.
+	private long batchLingerMillis;
+
+	// max waiting messages, 0 means unbounded. it's a soft limit for concurrent
+	// mailboxes since simultaneous senders might pass the check together.
+	private int capacity;
+
+	// what happens to the messages that arrive when the mailbox is full.
+	private OverflowPolicy overflowPolicy;
+
+	// max waiting time of the senders for the BLOCK policy.
+	private long blockTimeoutMillis;
+
+	// in-heap message count after which messages are spilled to the disk, 0
+	// means never. requires a messageCodec.
+	private int spillWatermark;
+
+	// directory of the spilled segment files.
+	private String spillDirectory;
+
+	// size of a spilled segment file in bytes.
+	private int spillSegmentSize;
+
+	// a child or pool worker that stays PASSIVE with an empty mailbox this long
+	// is retired, 0 means never.
+	private long idleRetirementMillis;
+
+	// write-ahead journaling of the topic's messages, requires a messageCodec.
+	// only the root actor's setting is taken into account.
+	private JournalSyncMode journalSyncMode;
+
+	private transient MessageCodec<T> messageCodec;
+
+	public ActorConfig(Topic topic, RouterNode router, DivisionStrategy<T> divisionStrategy, ActorPriority priority,
+			List<Topic> waitList) {
+		this.topic = topic;
+		this.router = router;
+		this.divisionStrategy = divisionStrategy;
+		this.priority = priority;
+		this.waitList = waitList;
+		this.mailboxType = MailboxTypes.LINKED;
+		this.throughput = 0;
+		this.batchSize = 1;
+		this.batchLingerMillis = 0;
+		this.capacity = 0;
+		this.overflowPolicy = OverflowPolicy.BLOCK;
+		this.blockTimeoutMillis = 1000L;
+		this.spillWatermark = 0;
+		this.spillDirectory = System.getProperty("java.io.tmpdir");
+		this.spillSegmentSize = 64 * 1024 * 1024;
+		this.journalSyncMode = JournalSyncMode.OFF;
+	}
 }
@@ -0,0 +1,40 @@
+package par.core.actor.base.node.configs;
+
+import java.util.function.ToIntBiFunction;
+
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+/**
+ * Bounds of the {@code DelayedCache}. Without a maximum size or weight the
+ * cache only loses its entries on expiry, or to the GC if the values are
+ * softly referenced.
+ * 
+ * @author osman.yasal
+ *
+ */
+@Data
+@Accessors(chain = true)
+public class CacheConfig {
+
+	// max number of entries, 0 is unbounded. ignored if maximumWeight is set.
+	private long maximumSize;
+
+	// max total weight of the entries given by the weigher, 0 is unbounded.
+	private long maximumWeight;
+
+	// weight of an entry, every entry weighs 1 if omitted.
+	private transient ToIntBiFunction<String, Object> weigher;
+
+	// values are held by SoftReferences, the GC may clear them under heap
+	// pressure.
+	private boolean isSoftValues;
+
+	public CacheConfig() {
+		this.isSoftValues = true;
+	}
+
+	public final boolean isBounded() {
+		return maximumWeight > 0 || maximumSize > 0;
+	}
+}
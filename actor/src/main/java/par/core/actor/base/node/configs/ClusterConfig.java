@@ -1,10 +1,13 @@
 package par.core.actor.base.node.configs;
 
+import java.nio.file.Paths;
 import java.util.UUID;
 
 import lombok.Data;
 import lombok.experimental.Accessors;
+import par.core.actor.factories.ExecutorFactory;
 import par.core.actor.factories.ExecutorFactory.ThreadPoolTypes;
+import par.core.actor.factories.IdGeneratorFactory.IdGeneratorTypes;
 
 @Data
 @Accessors(chain = true)
@@ -15,6 +18,23 @@ public class ClusterConfig {
 	private ThreadPoolTypes poolType;
 	private boolean isDeamon;
 
+	// waiting time that raises a queued task one priority level in PRIORITIZED
+	// pools.
+	private long priorityAgingMillis;
+
+	// period of the idle node retirement checks.
+	private long idleCheckMillis;
+
+	// parent directory of the topic journals, must be the same between restarts
+	// to replay the unconsumed messages.
+	private String journalDirectory;
+
+	// how the ids of the messages and the nodes are generated.
+	private IdGeneratorTypes idGeneratorType;
+
+	// bounds of the cluster's cache.
+	private CacheConfig cacheConfig;
+
 	/**
 	 * @param poolType can be omitted by default creates
 	 *                 {@code FixedSizedThreadPool} with default thread count
@@ -24,5 +44,10 @@ public class ClusterConfig {
 		this.threadCount = Runtime.getRuntime().availableProcessors() * 2;
 		this.poolType = poolType != null ? poolType : ThreadPoolTypes.FIXED_SIZED;
 		this.isDeamon = isDeamon;
+		this.priorityAgingMillis = ExecutorFactory.DEFAULT_PRIORITY_AGING_MILLIS;
+		this.idGeneratorType = IdGeneratorTypes.UUID;
+		this.idleCheckMillis = 1000L;
+		this.cacheConfig = new CacheConfig();
+		this.journalDirectory = Paths.get(System.getProperty("java.io.tmpdir"), "actor-journal").toString();
 	}
 }
@@ -0,0 +1,82 @@
+package par.core.actor.cache;
+
+import java.lang.ref.SoftReference;
+import java.util.concurrent.Future;
+
+import par.core.actor.annotations.GuardedBy;
+
+/**
+ * A value of the {@code DelayedCache} with its weight and its place in the
+ * eviction policy. The value is dropped and the expiry is cancelled once the
+ * entry leaves the cache.
+ * 
+ * @author osman.yasal
+ *
+ */
+final class CacheEntry {
+
+	enum Region {
+		// recently added entries, they aren't judged by their frequency yet.
+		WINDOW,
+		// admitted entries that weren't hit since their admission.
+		PROBATION,
+		// admitted entries that were hit again.
+		PROTECTED
+	}
+
+	private final String key;
+	private final int weight;
+	// the value itself or its SoftReference.
+	private volatile Object value;
+	private final boolean isSoft;
+	// null until the expiry is scheduled.
+	private volatile Future<?> expiry;
+
+	@GuardedBy("evictionLock")
+	Region region;
+	@GuardedBy("evictionLock")
+	CacheEntry previous;
+	@GuardedBy("evictionLock")
+	CacheEntry next;
+
+	CacheEntry(String key, Object value, int weight, boolean isSoft) {
+		this.key = key;
+		this.weight = weight;
+		this.isSoft = isSoft;
+		this.value = isSoft ? new SoftReference<>(value) : value;
+	}
+
+	String getKey() {
+		return key;
+	}
+
+	int getWeight() {
+		return weight;
+	}
+
+	/**
+	 * @return null if the entry was removed or its value was cleared by the GC
+	 */
+	Object getValue() {
+		Object current = value;
+		if (isSoft && current != null)
+			return ((SoftReference<?>) current).get();
+		return current;
+	}
+
+	/**
+	 * Cancels the expiry right away if the entry already left the cache.
+	 */
+	void expireBy(Future<?> expiry) {
+		this.expiry = expiry;
+		if (value == null)
+			expiry.cancel(false);
+	}
+
+	void clear() {
+		value = null;
+		Future<?> current = expiry;
+		if (current != null)
+			current.cancel(false);
+	}
+}
@@ -1,54 +1,89 @@
 package par.core.actor.cache;
 
-import java.lang.ref.SoftReference;
-import java.util.Optional;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.DelayQueue;
-import java.util.concurrent.Delayed;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToIntBiFunction;
 
-import lombok.AllArgsConstructor;
-import lombok.EqualsAndHashCode;
-import lombok.Getter;
+import par.core.actor.annotations.GuardedBy;
 import par.core.actor.annotations.ThreadSafe;
+import par.core.actor.base.node.configs.CacheConfig;
 import par.core.actor.terminators.Terminate;
 
 /**
  * We can easily store some calculated operations results in order to reduce
- * re-calculation time.
+ * re-calculation time.<br>
+ * If the {@code CacheConfig} sets a maximum size or weight, the entries that
+ * don't fit are evicted by {@code WTinyLfuPolicy}. Writes take the eviction
+ * lock, reads don't: their keys are buffered and replayed to the policy by
+ * whoever gets the lock next. The buffer is lossy, a busy cache drops some
+ * reads rather than blocking on them.<br>
+ * Every entry has its own expiry task, it's cancelled once the entry is
+ * replaced, evicted or removed so the cleaner only keeps the live entries.
  * 
  * @author osman.yasal
  *
  */
 public class DelayedCache implements Cache, Terminate {
 
-	private final ConcurrentHashMap<String, SoftReference<Object>> cache;
-	private final DelayQueue<DelayedCacheObject> cleaningUpQueue;
-	private Thread cleanerThread;
+	private static final int READ_BUFFER_LIMIT = 256;
+	private static final int READ_DRAIN_THRESHOLD = 32;
+
+	private final ConcurrentHashMap<String, CacheEntry> cache;
+	private final ScheduledThreadPoolExecutor cleaner;
+	private final boolean isSoftValues;
+	private final ToIntBiFunction<String, Object> weigher;
+	// null if the cache is unbounded.
+	@GuardedBy("evictionLock")
+	private final WTinyLfuPolicy policy;
+	private final Lock evictionLock;
+	private final Queue<String> readBuffer;
+	private final AtomicInteger readBufferSize;
 
 	public DelayedCache() {
+		this(new CacheConfig());
+	}
+
+	public DelayedCache(CacheConfig config) {
 		cache = new ConcurrentHashMap<>();
-		cleaningUpQueue = new DelayQueue<>();
-		initCleanerThread();
+		isSoftValues = config.isSoftValues();
+		if (config.getMaximumWeight() > 0) {
+			policy = new WTinyLfuPolicy(config.getMaximumWeight(), 0);
+			weigher = config.getWeigher() != null ? config.getWeigher() : (k, v) -> 1;
+		} else if (config.getMaximumSize() > 0) {
+			policy = new WTinyLfuPolicy(config.getMaximumSize(), config.getMaximumSize());
+			weigher = (k, v) -> 1;
+		} else {
+			policy = null;
+			weigher = null;
+		}
+		evictionLock = new ReentrantLock();
+		readBuffer = new ConcurrentLinkedQueue<>();
+		readBufferSize = new AtomicInteger();
+		cleaner = initCleaner();
 	}
 
 	/**
-	 * deamon cleaner thread, clears the items of the cache that its time is exceed
+	 * deamon cleaner thread, clears the items of the cache that its time is
+	 * exceed. The cancelled expiries leave its queue right away, the entries
+	 * added after the termination never expire.
 	 */
-	private void initCleanerThread() {
-		this.cleanerThread = new Thread(() -> {
-			DelayedCacheObject delayedCacheObject;
-			while (!Thread.currentThread().isInterrupted()) {
-				try {
-					delayedCacheObject = this.cleaningUpQueue.take();
-					this.cache.remove(delayedCacheObject.getKey(), delayedCacheObject.getReference());
-				} catch (InterruptedException e) {
-					Thread.currentThread().interrupt();
-				}
-			}
-		});
-		this.cleanerThread.setDaemon(true);
-		this.cleanerThread.start();
+	private static ScheduledThreadPoolExecutor initCleaner() {
+		ScheduledThreadPoolExecutor result = new ScheduledThreadPoolExecutor(1, x -> {
+			Thread thread = new Thread(x, "cache-cleaner");
+			thread.setDaemon(true);
+			return thread;
+		}, new ThreadPoolExecutor.DiscardPolicy());
+		result.setRemoveOnCancelPolicy(true);
+		return result;
 	}
 
 	@Override
@@ -58,31 +93,144 @@ public class DelayedCache implements Cache, Terminate {
 			return;
 		}
 		if (value == null) {
-			cache.remove(key);
+			remove(key);
+			return;
+		}
+		CacheEntry entry;
+		if (policy == null) {
+			entry = new CacheEntry(key, value, 1, isSoftValues);
+			CacheEntry old = cache.put(key, entry);
+			if (old != null)
+				old.clear();
 		} else {
-			long expiryTime = System.currentTimeMillis() + TimeUnit.MILLISECONDS.convert(time, timeUnit);
-			SoftReference<Object> reference = new SoftReference<>(value);
-			cache.put(key, reference);
-			cleaningUpQueue.put(new DelayedCacheObject(key, reference, expiryTime));
+			int weight = weigher.applyAsInt(key, value);
+			if (weight < 0)
+				throw new IllegalArgumentException("Negative weight of the key " + key);
+			entry = new CacheEntry(key, value, weight, isSoftValues);
+			addBounded(entry);
+		}
+		entry.expireBy(cleaner.schedule(() -> removeEntry(entry), time, timeUnit));
+	}
+
+	private void addBounded(CacheEntry entry) {
+		List<CacheEntry> evicted = new ArrayList<>();
+		evictionLock.lock();
+		try {
+			drainReadBuffer();
+			CacheEntry old = cache.put(entry.getKey(), entry);
+			if (old != null) {
+				policy.onRemove(old);
+				old.clear();
+			}
+			policy.onAdd(entry, cache.size(), evicted);
+			for (CacheEntry victim : evicted) {
+				cache.remove(victim.getKey(), victim);
+				victim.clear();
+			}
+		} finally {
+			evictionLock.unlock();
 		}
 	}
 
 	@Override
 	@ThreadSafe
 	public void remove(String key) {
-		cache.remove(key);
+		if (policy == null) {
+			CacheEntry entry = cache.remove(key);
+			if (entry != null)
+				entry.clear();
+			return;
+		}
+		evictionLock.lock();
+		try {
+			CacheEntry entry = cache.remove(key);
+			if (entry != null) {
+				policy.onRemove(entry);
+				entry.clear();
+			}
+		} finally {
+			evictionLock.unlock();
+		}
+	}
+
+	/**
+	 * Removes the entry only if it's still the entry of its key.
+	 */
+	private void removeEntry(CacheEntry entry) {
+		if (policy == null) {
+			if (cache.remove(entry.getKey(), entry))
+				entry.clear();
+			return;
+		}
+		evictionLock.lock();
+		try {
+			if (cache.remove(entry.getKey(), entry)) {
+				policy.onRemove(entry);
+				entry.clear();
+			}
+		} finally {
+			evictionLock.unlock();
+		}
 	}
 
 	@Override
 	@ThreadSafe
 	public Object get(String key) {
-		return Optional.ofNullable(cache.get(key)).map(SoftReference::get).orElse(null);
+		if (key == null)
+			return null;
+		CacheEntry entry = cache.get(key);
+		if (policy != null)
+			recordRead(key);
+		if (entry == null)
+			return null;
+		Object value = entry.getValue();
+		if (value == null)
+			removeEntry(entry);
+		return value;
+	}
+
+	private void recordRead(String key) {
+		if (readBufferSize.get() < READ_BUFFER_LIMIT) {
+			readBuffer.offer(key);
+			readBufferSize.incrementAndGet();
+		}
+		if (readBufferSize.get() >= READ_DRAIN_THRESHOLD && evictionLock.tryLock()) {
+			try {
+				drainReadBuffer();
+			} finally {
+				evictionLock.unlock();
+			}
+		}
+	}
+
+	@GuardedBy("evictionLock")
+	private void drainReadBuffer() {
+		String key;
+		while ((key = readBuffer.poll()) != null) {
+			readBufferSize.decrementAndGet();
+			policy.record(key);
+			CacheEntry entry = cache.get(key);
+			if (entry != null)
+				policy.onAccess(entry);
+		}
 	}
 
 	@Override
 	@ThreadSafe
 	public void clear() {
-		cache.clear();
+		if (policy == null) {
+			cache.values().forEach(CacheEntry::clear);
+			cache.clear();
+			return;
+		}
+		evictionLock.lock();
+		try {
+			cache.values().forEach(CacheEntry::clear);
+			cache.clear();
+			policy.clear();
+		} finally {
+			evictionLock.unlock();
+		}
 	}
 
 	@Override
@@ -91,32 +239,25 @@ public class DelayedCache implements Cache, Terminate {
 		return cache.size();
 	}
 
-	@Override
-	public void terminate() {
-		if (cleanerThread.isAlive())
-			cleanerThread.interrupt();
-		cleaningUpQueue.clear();
-		cache.clear();
-	}
-
-	@AllArgsConstructor
-	@EqualsAndHashCode
-	private static class DelayedCacheObject implements Delayed {
-
-		@Getter
-		private final String key;
-		@Getter
-		private final SoftReference<Object> reference;
-		private final long expiryTime;
-
-		@Override
-		public long getDelay(TimeUnit unit) {
-			return unit.convert(expiryTime - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+	/**
+	 * @return total weight of the entries, the entry count if the cache isn't
+	 *         bounded by weight.
+	 */
+	@ThreadSafe
+	public long weightedSize() {
+		if (policy == null)
+			return cache.size();
+		evictionLock.lock();
+		try {
+			return policy.weightedSize();
+		} finally {
+			evictionLock.unlock();
 		}
+	}
 
-		@Override
-		public int compareTo(Delayed o) {
-			return Long.compare(expiryTime, ((DelayedCacheObject) o).expiryTime);
-		}
+	@Override
+	public void terminate() {
+		cleaner.shutdownNow();
+		clear();
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,96 @@
+package par.core.actor.cache;
+
+/**
+ * Count-Min sketch of 4-bit counters that estimates how often a key was
+ * accessed recently. Every long of the table holds 16 counters, a key is
+ * counted in 4 of them of different longs. When the additions reach
+ * {@code SAMPLE_FACTOR} times the width, all counters are halved so the old
+ * popularity fades away.<br>
+ * Not thread safe, guarded by the eviction lock of the cache.
+ * 
+ * @author osman.yasal
+ *
+ */
+final class FrequencySketch {
+
+	private static final long[] SEEDS = { 0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL,
+			0xcbf29ce484222325L };
+	private static final long RESET_MASK = 0x7777777777777777L;
+	private static final int SAMPLE_FACTOR = 10;
+	private static final int MAX_WIDTH = 1 << 24;
+
+	private long[] table;
+	private int tableMask;
+	private int sampleSize;
+	private int additions;
+
+	FrequencySketch(long expectedSize) {
+		ensureCapacity(expectedSize);
+	}
+
+	/**
+	 * Widens the table for {@code expectedSize} keys, the counts are lost.
+	 */
+	void ensureCapacity(long expectedSize) {
+		int width = (int) Math.min(MAX_WIDTH, Math.max(16, expectedSize));
+		width = Integer.highestOneBit(width - 1) << 1;
+		if (table != null && table.length >= width)
+			return;
+		table = new long[width];
+		tableMask = width - 1;
+		sampleSize = SAMPLE_FACTOR * width;
+		additions = 0;
+	}
+
+	int frequency(Object key) {
+		int hash = spread(key.hashCode());
+		int start = (hash & 3) << 2;
+		int frequency = Integer.MAX_VALUE;
+		for (int i = 0; i < SEEDS.length; i++) {
+			int offset = (start + i) << 2;
+			int count = (int) ((table[indexOf(hash, i)] >>> offset) & 0xfL);
+			frequency = Math.min(frequency, count);
+		}
+		return frequency;
+	}
+
+	void increment(Object key) {
+		int hash = spread(key.hashCode());
+		int start = (hash & 3) << 2;
+		boolean isAdded = false;
+		for (int i = 0; i < SEEDS.length; i++)
+			isAdded |= incrementAt(indexOf(hash, i), start + i);
+		if (isAdded && ++additions == sampleSize)
+			reset();
+	}
+
+	private boolean incrementAt(int index, int counter) {
+		int offset = counter << 2;
+		long mask = 0xfL << offset;
+		if ((table[index] & mask) == mask)
+			return false;
+		table[index] += 1L << offset;
+		return true;
+	}
+
+	private void reset() {
+		for (int i = 0; i < table.length; i++)
+			table[i] = (table[i] >>> 1) & RESET_MASK;
+		additions >>>= 1;
+	}
+
+	private int indexOf(int hash, int i) {
+		long value = (hash + SEEDS[i]) * SEEDS[i];
+		value += value >>> 32;
+		return (int) value & tableMask;
+	}
+
+	/**
+	 * Applies a supplemental hash, defends against poor hashCodes.
+	 */
+	private static int spread(int value) {
+		value = ((value >>> 16) ^ value) * 0x45d9f3b;
+		value = ((value >>> 16) ^ value) * 0x45d9f3b;
+		return (value >>> 16) ^ value;
+	}
+}
@@ -0,0 +1,218 @@
+package par.core.actor.cache;
+
+import java.util.List;
+
+import par.core.actor.cache.CacheEntry.Region;
+
+/**
+ * Window TinyLFU eviction. A new entry first enters a small LRU window, the
+ * entries leaving the window must have been accessed more often than the
+ * victim of the main space to get in, so a scan of one-time keys only churns
+ * the window. The main space is a segmented LRU: an entry hit in probation is
+ * promoted to the protected segment and the protected overflow is demoted back
+ * to probation.<br>
+ * The access frequencies, the misses included, are estimated by a
+ * {@code FrequencySketch}. Ties go to the victim.<br>
+ * Not thread safe, guarded by the eviction lock of the cache.
+ * 
+ * @author osman.yasal
+ *
+ */
+final class WTinyLfuPolicy {
+
+	private static final int WINDOW_PERCENT = 1;
+	private static final int PROTECTED_PERCENT = 80;
+
+	private final long maximum;
+	private final long windowMaximum;
+	private final long mainMaximum;
+	private final long protectedMaximum;
+
+	private final AccessOrderDeque window;
+	private final AccessOrderDeque probation;
+	private final AccessOrderDeque protectedDeque;
+	private final FrequencySketch sketch;
+
+	private long windowWeight;
+	// weight of the probation and protected segments together.
+	private long mainWeight;
+	private long protectedWeight;
+
+	/**
+	 * Doubly linked LRU list of the entries, the least recently used one is the
+	 * first.
+	 */
+	private static final class AccessOrderDeque {
+		private CacheEntry first;
+		private CacheEntry last;
+
+		private CacheEntry peekFirst() {
+			return first;
+		}
+
+		private void addLast(CacheEntry entry) {
+			entry.previous = last;
+			entry.next = null;
+			if (last == null)
+				first = entry;
+			else
+				last.next = entry;
+			last = entry;
+		}
+
+		private void remove(CacheEntry entry) {
+			if (entry.previous == null)
+				first = entry.next;
+			else
+				entry.previous.next = entry.next;
+			if (entry.next == null)
+				last = entry.previous;
+			else
+				entry.next.previous = entry.previous;
+			entry.previous = null;
+			entry.next = null;
+		}
+
+		private void moveToLast(CacheEntry entry) {
+			if (entry != last) {
+				remove(entry);
+				addLast(entry);
+			}
+		}
+
+		private void clear() {
+			first = null;
+			last = null;
+		}
+	}
+
+	WTinyLfuPolicy(long maximum, long expectedSize) {
+		this.maximum = maximum;
+		this.windowMaximum = Math.max(1, maximum * WINDOW_PERCENT / 100);
+		this.mainMaximum = Math.max(0, maximum - windowMaximum);
+		this.protectedMaximum = mainMaximum * PROTECTED_PERCENT / 100;
+		this.window = new AccessOrderDeque();
+		this.probation = new AccessOrderDeque();
+		this.protectedDeque = new AccessOrderDeque();
+		this.sketch = new FrequencySketch(expectedSize);
+	}
+
+	long weightedSize() {
+		return windowWeight + mainWeight;
+	}
+
+	/**
+	 * Counts an access of the key, whether it's cached or not.
+	 */
+	void record(String key) {
+		sketch.increment(key);
+	}
+
+	void onAccess(CacheEntry entry) {
+		if (entry.region == null)
+			return;
+		switch (entry.region) {
+		case WINDOW:
+			window.moveToLast(entry);
+			break;
+		case PROBATION:
+			probation.remove(entry);
+			entry.region = Region.PROTECTED;
+			protectedDeque.addLast(entry);
+			protectedWeight += entry.getWeight();
+			demoteProtected();
+			break;
+		case PROTECTED:
+			protectedDeque.moveToLast(entry);
+			break;
+		}
+	}
+
+	/**
+	 * Adds the new entry to the window and collects the entries that don't fit
+	 * anymore, the new entry may be one of them.
+	 */
+	void onAdd(CacheEntry entry, int entryCount, List<CacheEntry> evicted) {
+		sketch.ensureCapacity(entryCount);
+		sketch.increment(entry.getKey());
+		if (entry.getWeight() > maximum) {
+			evicted.add(entry);
+			return;
+		}
+		entry.region = Region.WINDOW;
+		window.addLast(entry);
+		windowWeight += entry.getWeight();
+		while (windowWeight > windowMaximum) {
+			CacheEntry candidate = window.peekFirst();
+			window.remove(candidate);
+			windowWeight -= candidate.getWeight();
+			candidate.region = Region.PROBATION;
+			probation.addLast(candidate);
+			mainWeight += candidate.getWeight();
+			admit(candidate, evicted);
+		}
+	}
+
+	void onRemove(CacheEntry entry) {
+		if (entry.region == null)
+			return;
+		switch (entry.region) {
+		case WINDOW:
+			window.remove(entry);
+			windowWeight -= entry.getWeight();
+			break;
+		case PROBATION:
+			probation.remove(entry);
+			mainWeight -= entry.getWeight();
+			break;
+		case PROTECTED:
+			protectedDeque.remove(entry);
+			protectedWeight -= entry.getWeight();
+			mainWeight -= entry.getWeight();
+			break;
+		}
+		entry.region = null;
+	}
+
+	void clear() {
+		window.clear();
+		probation.clear();
+		protectedDeque.clear();
+		windowWeight = 0;
+		mainWeight = 0;
+		protectedWeight = 0;
+	}
+
+	/**
+	 * The candidate has just left the window and sits at the end of probation,
+	 * it evicts the least recently used entries of the main space as long as
+	 * it's more popular than them.
+	 */
+	private void admit(CacheEntry candidate, List<CacheEntry> evicted) {
+		while (mainWeight > mainMaximum) {
+			CacheEntry victim = probation.peekFirst();
+			if (victim == candidate)
+				victim = protectedDeque.peekFirst();
+			if (victim == null || sketch.frequency(candidate.getKey()) <= sketch.frequency(victim.getKey())) {
+				evict(candidate, evicted);
+				return;
+			}
+			evict(victim, evicted);
+		}
+	}
+
+	private void demoteProtected() {
+		while (protectedWeight > protectedMaximum) {
+			CacheEntry demoted = protectedDeque.peekFirst();
+			protectedDeque.remove(demoted);
+			protectedWeight -= demoted.getWeight();
+			demoted.region = Region.PROBATION;
+			probation.addLast(demoted);
+		}
+	}
+
+	private void evict(CacheEntry entry, List<CacheEntry> evicted) {
+		onRemove(entry);
+		evicted.add(entry);
+	}
+}
@@ -1,50 +1,260 @@
 package par.core.actor.divisionstrategies;
 
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import lombok.AccessLevel;
 import lombok.Data;
 import lombok.Getter;
-import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.experimental.Accessors;
-import par.core.actor.annotations.Immutable;
+import par.core.actor.annotations.GuardedBy;
+import par.core.actor.annotations.ThreadSafe;
 import par.core.actor.base.ActorMessage;
 import par.core.actor.base.node.Actor;
+import par.core.actor.metrics.ActorMetrics;
 
 /**
  * This division strategy changes divison number according to the input value
  * <b>DYNAMICALLY.</b> <br>
- * Uses deep neural network in order to do this.
- * 
+ * A feedback controller samples the {@code ActorMetrics} of the topic's nodes
+ * every {@code sampleIntervalMillis} and derives a queue threshold from the
+ * mean service time, the arrival rate and the target queueing delay:
+ *
+ * <pre>
+ * threshold = targetDelay / serviceTime - max(0, arrivalRatePerNode - serviceRate) * sampleInterval
+ * </pre>
+ *
+ * A node whose queue reaches the threshold forwards its messages to its child,
+ * creating one if needed. Every new child is put on probation for a sample:
+ * if the arrivals still outpace the processing but the topic's throughput
+ * didn't increase by {@code minGain}, the controller stops spawning for
+ * {@code COOLDOWN_SAMPLES} samples, e.g. the thread pool is already
+ * saturated.<br>
+ * {@code queueLimit} is used until the first service time is measured.<br>
+ * Only the configuration is fixed, the controller state changes with every
+ * sample and is shared by all nodes of the topic. It's written under the
+ * {@code sampleLock} and the senders read its volatile fields without it, so
+ * an instance must not be shared between topics.
+ *
  * @author osman.yasal
  *
  * @param <T>
  */
-
-//TODO:implement autodivision
-@Immutable
+@ThreadSafe
 @Data
 @Accessors(chain = true)
-@NoArgsConstructor
 public class AutoDivision<T> implements DivisionStrategy<T> {
+
+	private static final long DEFAULT_TARGET_DELAY_MILLIS = 10;
+	private static final long DEFAULT_SAMPLE_INTERVAL_MILLIS = 50;
+	private static final double DEFAULT_MIN_GAIN = 0.05;
+	private static final long DEFAULT_QUEUE_LIMIT = 1000L;
+	private static final int COOLDOWN_SAMPLES = 20;
+
 	@Setter(AccessLevel.PRIVATE)
 	@Getter(AccessLevel.PRIVATE)
 	private Long queueLimit;
 
+	@Setter(AccessLevel.PRIVATE)
+	private long targetDelayMillis;
+
+	@Setter(AccessLevel.PRIVATE)
+	private long sampleIntervalMillis;
+
+	// min relative throughput increase expected from a new child.
+	@Setter(AccessLevel.PRIVATE)
+	private double minGain;
+
+	@Setter(AccessLevel.PRIVATE)
+	@Getter(AccessLevel.PRIVATE)
+	private transient Lock sampleLock;
+
+	// current queue threshold of the nodes, the volatile fields below are written
+	// under the sampleLock and read without it.
+	@Setter(AccessLevel.PRIVATE)
+	private transient volatile long threshold;
+
+	@Setter(AccessLevel.PRIVATE)
+	@Getter(AccessLevel.PRIVATE)
+	private transient volatile boolean isSpawnAllowed;
+
+	@Setter(AccessLevel.PRIVATE)
+	@Getter(AccessLevel.PRIVATE)
+	private transient volatile long nextSampleNanos;
+
+	// messages per second of the last sample.
+	@Setter(AccessLevel.PRIVATE)
+	private transient volatile double throughput;
+
+	@Setter(AccessLevel.PRIVATE)
+	private transient volatile double arrivalRate;
+
+	@Setter(AccessLevel.PRIVATE)
+	@Getter(AccessLevel.PRIVATE)
+	@GuardedBy("sampleLock")
+	private transient Sample lastSample;
+
+	@Setter(AccessLevel.PRIVATE)
+	@Getter(AccessLevel.PRIVATE)
+	@GuardedBy("sampleLock")
+	private transient Probation probation;
+
+	@Setter(AccessLevel.PRIVATE)
+	@Getter(AccessLevel.PRIVATE)
+	@GuardedBy("sampleLock")
+	private transient long frozenUntilNanos;
+
+	/**
+	 * Accumulated counters of the topic's nodes at a point in time.
+	 */
+	private static final class Sample {
+		private final long nanos;
+		private final int nodeCount;
+		private long arrivals;
+		private long processed;
+		private long serviceNanos;
+
+		private Sample(long nanos, int nodeCount) {
+			this.nanos = nanos;
+			this.nodeCount = nodeCount;
+		}
+	}
+
+	/**
+	 * A spawned child waiting for its throughput evaluation.
+	 */
+	private static final class Probation {
+		private final long spawnNanos;
+		private final double throughputBefore;
+
+		private Probation(long spawnNanos, double throughputBefore) {
+			this.spawnNanos = spawnNanos;
+			this.throughputBefore = throughputBefore;
+		}
+	}
+
+	public AutoDivision() {
+		this(DEFAULT_TARGET_DELAY_MILLIS);
+	}
+
+	public AutoDivision(long targetDelayMillis) {
+		this(targetDelayMillis, DEFAULT_SAMPLE_INTERVAL_MILLIS, DEFAULT_MIN_GAIN, DEFAULT_QUEUE_LIMIT);
+	}
+
+	public AutoDivision(long targetDelayMillis, long sampleIntervalMillis, double minGain, Long queueLimit) {
+		this.targetDelayMillis = targetDelayMillis;
+		this.sampleIntervalMillis = sampleIntervalMillis;
+		this.minGain = minGain;
+		this.queueLimit = queueLimit;
+		this.sampleLock = new ReentrantLock();
+		this.threshold = queueLimit;
+		this.isSpawnAllowed = true;
+		this.nextSampleNanos = System.nanoTime();
+		this.frozenUntilNanos = nextSampleNanos;
+	}
+
 	@Override
 	public boolean isConditionValid(Actor<T> actor) {
-		return false;
+		long now = System.nanoTime();
+		if (now - nextSampleNanos >= 0)
+			sample(actor, now);
+		if (actor.getQueueSize() < threshold)
+			return false;
+		return actor.getChildActor() != null || isSpawnAllowed;
 	}
 
 	@Override
 	public void executeSendingStrategy(Actor<T> actor, List<ActorMessage<T>> message) {
-		return;
+		fetchChild(actor).sendAllByLocking(message);
 	}
 
 	@Override
 	public void executeLoadingStrategy(Actor<T> actor, List<ActorMessage<T>> message) {
-		return;
+		fetchChild(actor).loadAll(message);
+	}
+
+	private Actor<T> fetchChild(Actor<T> actor) {
+		if (actor.getChildActor() == null)
+			spawned();
+		return actor.fetchChildActor();
+	}
+
+	/**
+	 * Puts the new child on probation, no other child is spawned until its
+	 * effect on the throughput is measured.
+	 */
+	private void spawned() {
+		sampleLock.lock();
+		try {
+			isSpawnAllowed = false;
+			probation = new Probation(System.nanoTime(), throughput);
+		} finally {
+			sampleLock.unlock();
+		}
 	}
 
+	/**
+	 * Only one sender takes the sample, the others keep using the current
+	 * threshold.
+	 */
+	private void sample(Actor<T> actor, long now) {
+		if (!sampleLock.tryLock())
+			return;
+		try {
+			if (now - nextSampleNanos < 0)
+				return;
+			nextSampleNanos = now + TimeUnit.MILLISECONDS.toNanos(sampleIntervalMillis);
+			Sample current = takeSample(actor, now);
+			if (lastSample != null && current.nanos - lastSample.nanos > 0)
+				adjust(lastSample, current);
+			lastSample = current;
+			isSpawnAllowed = probation == null && now - frozenUntilNanos >= 0;
+		} finally {
+			sampleLock.unlock();
+		}
+	}
+
+	@GuardedBy("sampleLock")
+	private void adjust(Sample previous, Sample current) {
+		double seconds = (current.nanos - previous.nanos) / 1e9;
+		long processed = current.processed - previous.processed;
+		long serviceNanos = current.serviceNanos - previous.serviceNanos;
+		throughput = processed / seconds;
+		arrivalRate = (current.arrivals - previous.arrivals) / seconds;
+
+		if (processed > 0 && serviceNanos > 0) {
+			double meanServiceNanos = (double) serviceNanos / processed;
+			double serviceRate = 1e9 / meanServiceNanos;
+			// queue growth of a node until the next sample, if arrivals outpace it.
+			double growth = Math.max(0, arrivalRate / current.nodeCount - serviceRate) * sampleIntervalMillis / 1e3;
+			double limit = TimeUnit.MILLISECONDS.toNanos(targetDelayMillis) / meanServiceNanos - growth;
+			threshold = Math.max(1L, (long) limit);
+		}
+
+		// the whole window must be after the spawn to judge the new child. it's only
+		// a failure if the arrivals still outpace the processing.
+		if (probation != null && previous.nanos - probation.spawnNanos >= 0) {
+			boolean isBacklogged = arrivalRate > throughput * (1 + minGain);
+			if (isBacklogged && throughput < probation.throughputBefore * (1 + minGain))
+				frozenUntilNanos = current.nanos
+						+ COOLDOWN_SAMPLES * TimeUnit.MILLISECONDS.toNanos(sampleIntervalMillis);
+			probation = null;
+		}
+	}
+
+	private Sample takeSample(Actor<T> actor, long now) {
+		Actor<?> root = actor.getRootActor(actor.getTopic().getName());
+		List<? extends Actor<?>> nodes = (root != null ? root : actor).getNodes();
+		Sample sample = new Sample(now, nodes.size());
+		for (Actor<?> node : nodes) {
+			ActorMetrics metrics = node.getMetrics();
+			sample.arrivals += metrics.getArrivals();
+			sample.processed += metrics.getProcessed();
+			sample.serviceNanos += metrics.getServiceNanos();
+		}
+		return sample;
+	}
 }
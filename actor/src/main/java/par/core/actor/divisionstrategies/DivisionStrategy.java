@@ -1,5 +1,6 @@
 package par.core.actor.divisionstrategies;
 
+import java.util.Collections;
 import java.util.List;
 
 import par.core.actor.annotations.Immutable;
@@ -63,4 +64,37 @@ public interface DivisionStrategy<T> {
 	 */
 	void executeLoadingStrategy(Actor<T> actor, List<ActorMessage<T>> message);
 
+	/**
+	 * Whether an idle child or pool worker of this strategy can be retired.
+	 * strategies that depend on a stable set of nodes should return false.
+	 * 
+	 * @param node
+	 * @return
+	 */
+	default boolean isRetirable(Actor<T> node) {
+		return true;
+	}
+
+	/**
+	 * Called once the root node is terminated recursively. strategies that keep
+	 * messages outside of the mailboxes stop their background work and return
+	 * them.
+	 * 
+	 * @param root
+	 * @return the messages the strategy was holding back.
+	 */
+	default List<ActorMessage<T>> terminate(Actor<T> root) {
+		return Collections.emptyList();
+	}
+
+	/**
+	 * Called by a node after each of its runs, once it's yielded or passivated.
+	 * strategies that wait for their nodes to drain react here instead of
+	 * polling them.
+	 * 
+	 * @param node
+	 */
+	default void runCompleted(Actor<T> node) {
+	}
+
 }
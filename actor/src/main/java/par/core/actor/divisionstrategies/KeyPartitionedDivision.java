@@ -0,0 +1,380 @@
+package par.core.actor.divisionstrategies;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+import lombok.AccessLevel;
+import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+import par.core.actor.annotations.GuardedBy;
+import par.core.actor.annotations.ThreadSafe;
+import par.core.actor.base.ActorMessage;
+import par.core.actor.base.ControlBlock.Status;
+import par.core.actor.base.node.Actor;
+import par.core.actor.exceptions.MailboxOverflowException;
+import par.core.actor.mailbox.OverflowPolicy;
+
+/**
+ * Routes every message sent to the root by the key of its payload. The root
+ * and its pool workers are placed on a consistent hash ring with
+ * {@code virtualNodes} points each, the messages of a key always go to the
+ * same node, so they are processed in FIFO order while different keys run in
+ * parallel.<br>
+ * The ring starts with {@code partitions} nodes. If {@code maxPartitions} is
+ * larger, a new node is added once the picked node's queue reaches the queue
+ * limit. The new node only takes the key ranges of its points, the other keys
+ * keep their nodes. Messages of the moved keys are held back until the donor
+ * nodes process what they had received before the growth, so the order of a
+ * key survives the move. The gate is checked once the growth is done and
+ * after every run of the donors, nothing polls them. The held messages count against the capacity of the
+ * new node, once it's reached they're dropped or rejected by its overflow
+ * policy, a blocking policy rejects since the gate has no space to wait for.
+ * <br>
+ * Partitions are never retired by the idle retirement and the overflow policy
+ * {@code DIVERT_TO_CHILD} breaks the ordering, it shouldn't be combined with
+ * this strategy.
+ *
+ * @author osman.yasal
+ *
+ * @param <T> : actor message type
+ */
+@ThreadSafe
+@Data
+@Accessors(chain = true)
+public final class KeyPartitionedDivision<T> implements DivisionStrategy<T> {
+
+	private static final int DEFAULT_VIRTUAL_NODES = 64;
+	private static final long DEFAULT_QUEUE_LIMIT = 1000L;
+
+	@Setter(AccessLevel.PRIVATE)
+	private int partitions;
+
+	// partitions can grow up to this number, the root included.
+	@Setter(AccessLevel.PRIVATE)
+	private int maxPartitions;
+
+	@Setter(AccessLevel.PRIVATE)
+	private int virtualNodes;
+
+	@Setter(AccessLevel.PRIVATE)
+	private Long queueLimit;
+
+	@Setter(AccessLevel.PRIVATE)
+	@Getter(AccessLevel.PRIVATE)
+	private transient Function<T, ?> keyExtractor;
+
+	// held by the routing senders, growth takes the write lock so the donors'
+	// arrivals can be counted exactly.
+	@Setter(AccessLevel.PRIVATE)
+	@Getter(AccessLevel.PRIVATE)
+	private transient ReadWriteLock ringLock;
+
+	// immutable, replaced on growth.
+	@Setter(AccessLevel.PRIVATE)
+	@Getter(AccessLevel.PRIVATE)
+	private transient volatile NavigableMap<Long, Partition<T>> ring;
+
+	// written under the write lock of the ring.
+	@Setter(AccessLevel.PRIVATE)
+	@Getter(AccessLevel.PRIVATE)
+	private transient List<Partition<T>> partitionList;
+
+	@Setter(AccessLevel.PRIVATE)
+	@Getter(AccessLevel.PRIVATE)
+	private transient volatile boolean isGrowing;
+
+	// set once the root is terminated, stops the growth and the gate releases.
+	@Setter(AccessLevel.PRIVATE)
+	@Getter(AccessLevel.PRIVATE)
+	private transient volatile boolean isTerminated;
+
+	/**
+	 * A node of the ring. A new node holds the messages of its keys back until
+	 * every donor node has processed the messages it received before the growth.
+	 */
+	private static final class Partition<T> {
+		private final Actor<T> node;
+		private final Lock lock;
+		private final List<ActorMessage<T>> held;
+		// donor node -> its arrivals when the key ranges were moved.
+		private final Map<Actor<T>, Long> donors;
+		private volatile boolean isGated;
+
+		private Partition(Actor<T> node, Map<Actor<T>, Long> donors) {
+			this.node = node;
+			this.lock = new ReentrantLock();
+			this.held = new ArrayList<>();
+			this.donors = donors;
+			this.isGated = !donors.isEmpty();
+		}
+	}
+
+	public KeyPartitionedDivision(Function<T, ?> keyExtractor, int partitions) {
+		this(keyExtractor, partitions, partitions, DEFAULT_QUEUE_LIMIT);
+	}
+
+	public KeyPartitionedDivision(Function<T, ?> keyExtractor, int partitions, int maxPartitions, Long queueLimit) {
+		this(keyExtractor, partitions, maxPartitions, queueLimit, DEFAULT_VIRTUAL_NODES);
+	}
+
+	public KeyPartitionedDivision(Function<T, ?> keyExtractor, int partitions, int maxPartitions, Long queueLimit,
+			int virtualNodes) {
+		this.keyExtractor = keyExtractor;
+		this.partitions = Math.max(1, partitions);
+		this.maxPartitions = Math.max(this.partitions, maxPartitions);
+		this.queueLimit = queueLimit;
+		this.virtualNodes = Math.max(1, virtualNodes);
+		this.ringLock = new ReentrantReadWriteLock();
+		this.partitionList = new CopyOnWriteArrayList<>();
+	}
+
+	/**
+	 * Only the root routes, every message it receives goes through the ring.
+	 */
+	@Override
+	public boolean isConditionValid(Actor<T> actor) {
+		return actor.getCb().isRoot();
+	}
+
+	@Override
+	public void executeSendingStrategy(Actor<T> actor, List<ActorMessage<T>> message) {
+		message.forEach(x -> route(actor, x, true));
+	}
+
+	@Override
+	public void executeLoadingStrategy(Actor<T> actor, List<ActorMessage<T>> message) {
+		message.forEach(x -> route(actor, x, false));
+	}
+
+	/**
+	 * Moving a partition would break the ordering of its keys.
+	 */
+	@Override
+	public boolean isRetirable(Actor<T> node) {
+		return false;
+	}
+
+	/**
+	 * Opens the gates and returns the held messages, in the order of the
+	 * partitions.
+	 */
+	@Override
+	public List<ActorMessage<T>> terminate(Actor<T> root) {
+		isTerminated = true;
+		List<ActorMessage<T>> result = new ArrayList<>();
+		for (Partition<T> partition : partitionList) {
+			partition.lock.lock();
+			try {
+				result.addAll(partition.held);
+				partition.held.clear();
+				partition.isGated = false;
+			} finally {
+				partition.lock.unlock();
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Opens the gates the node is a donor of, if its run has processed the
+	 * messages it received before the growth.
+	 */
+	@Override
+	public void runCompleted(Actor<T> node) {
+		if (!isGrowing)
+			return;
+		for (Partition<T> partition : partitionList) {
+			if (partition.isGated && partition.donors.containsKey(node))
+				release(partition);
+		}
+	}
+
+	private void route(Actor<T> root, ActorMessage<T> message, boolean isSending) {
+		if (ring == null)
+			initRing(root);
+		long hash = hash(message);
+		if (maxPartitions > partitionList.size() && lookup(ring, hash).node.getQueueSize() >= queueLimit)
+			grow(root);
+
+		ringLock.readLock().lock();
+		try {
+			Partition<T> partition = lookup(ring, hash);
+			if (partition.isGated && hold(partition, message))
+				return;
+			partition.node.deliver(message, isSending);
+		} finally {
+			ringLock.readLock().unlock();
+		}
+	}
+
+	private void initRing(Actor<T> root) {
+		ringLock.writeLock().lock();
+		try {
+			if (ring != null)
+				return;
+			NavigableMap<Long, Partition<T>> initial = new TreeMap<>();
+			addPartition(initial, new Partition<>(root, Map.of()));
+			for (int i = 1; i < partitions; i++) {
+				Actor<T> worker = root.addPoolWorker(partitions);
+				if (worker != null)
+					addPartition(initial, new Partition<>(worker, Map.of()));
+			}
+			ring = initial;
+		} finally {
+			ringLock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Adds a node to the ring. Growth is skipped while the routing senders hold
+	 * the ring or a previous new node is still gated, the next message tries
+	 * again.
+	 */
+	private void grow(Actor<T> root) {
+		if (isGrowing || isTerminated || !ringLock.writeLock().tryLock())
+			return;
+		Partition<T> partition;
+		try {
+			if (partitionList.size() >= maxPartitions || partitionList.stream().anyMatch(x -> x.isGated))
+				return;
+			Actor<T> worker = root.addPoolWorker(maxPartitions);
+			if (worker == null)
+				return;
+			NavigableMap<Long, Partition<T>> grown = new TreeMap<>(ring);
+			// by identity, the Lombok hashCode of an actor walks the whole cluster.
+			Map<Actor<T>, Long> donors = new IdentityHashMap<>();
+			for (long point : points(partitionList.size())) {
+				Actor<T> donor = lookup(ring, point).node;
+				donors.putIfAbsent(donor, donor.getMetrics().getArrivals());
+			}
+			partition = new Partition<>(worker, donors);
+			addPartition(grown, partition);
+			ring = grown;
+			isGrowing = true;
+		} finally {
+			ringLock.writeLock().unlock();
+		}
+		// the donors might be idle already, otherwise the end of their runs opens it.
+		release(partition);
+	}
+
+	@GuardedBy("ringLock")
+	private void addPartition(NavigableMap<Long, Partition<T>> target, Partition<T> partition) {
+		for (long point : points(partitionList.size()))
+			target.put(point, partition);
+		partitionList.add(partition);
+	}
+
+	/**
+	 * The inputs of the points start from 2^32 and the ones of the keys stay
+	 * below it, otherwise small integer keys would sit exactly on the points of
+	 * the first partition and never move.
+	 */
+	private Set<Long> points(int index) {
+		Set<Long> result = new HashSet<>();
+		for (int i = 0; i < virtualNodes; i++)
+			result.add(mix(((index + 1L) << 32) | i));
+		return result;
+	}
+
+	private long hash(ActorMessage<T> message) {
+		Object key = keyExtractor.apply(message.getMessage());
+		return mix(key != null ? key.hashCode() & 0xFFFFFFFFL : 0);
+	}
+
+	private static <T> Partition<T> lookup(NavigableMap<Long, Partition<T>> ring, long hash) {
+		Map.Entry<Long, Partition<T>> entry = ring.ceilingEntry(hash);
+		return (entry != null ? entry : ring.firstEntry()).getValue();
+	}
+
+	/**
+	 * Keeps the message in the gated partition, returns false if the gate has
+	 * been opened meanwhile.
+	 * 
+	 * @throws MailboxOverflowException if the held messages reached the
+	 *                                  capacity of the node and its policy
+	 *                                  doesn't drop.
+	 */
+	private boolean hold(Partition<T> partition, ActorMessage<T> message) {
+		partition.lock.lock();
+		try {
+			if (!partition.isGated)
+				return false;
+			Actor<T> node = partition.node;
+			int capacity = node.getCapacity();
+			if (capacity > 0 && partition.held.size() >= capacity) {
+				OverflowPolicy policy = node.getOverflowPolicy();
+				node.getOverflowCounters().fired(policy);
+				if (OverflowPolicy.DROP_NEWEST.equals(policy))
+					return true;
+				if (!OverflowPolicy.DROP_OLDEST.equals(policy))
+					throw new MailboxOverflowException(node.getTopic().getName(), capacity);
+				partition.held.remove(0);
+			}
+			partition.held.add(message);
+			return true;
+		} finally {
+			partition.lock.unlock();
+		}
+	}
+
+	/**
+	 * Opens the gate once every donor has processed the messages it received
+	 * before the growth, or has gone idle, then sends the held messages in their
+	 * order. Stops without sending once the root is terminated, the termination
+	 * returns the held messages.
+	 */
+	private void release(Partition<T> partition) {
+		if (isTerminated)
+			return;
+		for (Map.Entry<Actor<T>, Long> donor : partition.donors.entrySet()) {
+			Actor<T> node = donor.getKey();
+			boolean isIdle = Status.PASSIVE.equals(node.getCb().getStatus()) && node.isQueueEmpty();
+			if (!isIdle && node.getMetrics().getProcessed() < donor.getValue())
+				return;
+		}
+		partition.lock.lock();
+		try {
+			// opened by another donor or the termination meanwhile.
+			if (!partition.isGated || isTerminated)
+				return;
+			for (ActorMessage<T> message : partition.held) {
+				try {
+					partition.node.deliver(message, true);
+				} catch (MailboxOverflowException e) {
+					// rejected by the overflow policy like any other message.
+				}
+			}
+			partition.held.clear();
+			partition.isGated = false;
+			isGrowing = false;
+		} finally {
+			partition.lock.unlock();
+		}
+	}
+
+	/**
+	 * Spreads the bits of the key hashes over the ring, the finalizer of
+	 * SplitMix64.
+	 */
+	private static long mix(long value) {
+		long z = value + 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+}
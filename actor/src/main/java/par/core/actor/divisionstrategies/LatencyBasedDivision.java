@@ -0,0 +1,51 @@
+package par.core.actor.divisionstrategies;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+import par.core.actor.annotations.Immutable;
+import par.core.actor.base.ActorMessage;
+import par.core.actor.base.node.Actor;
+
+/**
+ * If the head of the queue has been waiting longer than the latency budget we
+ * create a new child actor and deliver incomming messages to it.<br>
+ * Unlike {@code NumberBasedDivison} the limit doesn't depend on how expensive
+ * the messages are. The observed queue delays of the nodes are exposed by
+ * {@code Actor.getMetrics()} to tune the budget.<br>
+ * The age of the spilled and the primitive values is unknown, such nodes never
+ * divide by this strategy.
+ *
+ * @author osman.yasal
+ *
+ * @param <T> : actor message type
+ */
+@Immutable
+@Data
+@Accessors(chain = true)
+@AllArgsConstructor
+public final class LatencyBasedDivision<T> implements DivisionStrategy<T> {
+	@Setter(AccessLevel.PRIVATE)
+	private long latencyBudgetMillis;
+
+	@Override
+	public boolean isConditionValid(Actor<T> actor) {
+		long age = actor.getQueueHeadAgeNanos();
+		return age > 0 && age >= TimeUnit.MILLISECONDS.toNanos(latencyBudgetMillis);
+	}
+
+	@Override
+	public void executeSendingStrategy(Actor<T> actor, List<ActorMessage<T>> message) {
+		actor.fetchChildActor().sendAllByLocking(message);
+	}
+
+	@Override
+	public void executeLoadingStrategy(Actor<T> actor, List<ActorMessage<T>> message) {
+		actor.fetchChildActor().loadAll(message);
+	}
+}
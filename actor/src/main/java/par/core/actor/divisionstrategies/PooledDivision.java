@@ -0,0 +1,118 @@
+package par.core.actor.divisionstrategies;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import lombok.AccessLevel;
+import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+import par.core.actor.annotations.ThreadSafe;
+import par.core.actor.base.ActorMessage;
+import par.core.actor.base.node.Actor;
+
+/**
+ * Keeps a flat pool of sibling workers next to the root node instead of a
+ * chain of children. Messages sent to the root are routed to the root itself
+ * or one of its workers, a new worker is added once the picked node's queue
+ * reaches the queue limit and the pool is narrower than {@code maxWidth}.<br>
+ * Workers enqueue their messages directly, so the same strategy instance can be
+ * shared with the generated workers. The routing cursor is the only state that
+ * changes after the construction.
+ *
+ * @author osman.yasal
+ *
+ * @param <T> : actor message type
+ */
+@ThreadSafe
+@Data
+@Accessors(chain = true)
+public final class PooledDivision<T> implements DivisionStrategy<T> {
+
+	public enum Routing {
+		// cycles through the pool.
+		ROUND_ROBIN,
+		// scans the whole pool for the shortest queue.
+		LEAST_QUEUE_DEPTH,
+		// picks the shorter queue of two random nodes.
+		POWER_OF_TWO_CHOICES
+	}
+
+	@Setter(AccessLevel.PRIVATE)
+	private Routing routing;
+
+	// max number of nodes in the pool, the root included.
+	@Setter(AccessLevel.PRIVATE)
+	private int maxWidth;
+
+	@Setter(AccessLevel.PRIVATE)
+	private Long queueLimit;
+
+	@Setter(AccessLevel.PRIVATE)
+	@Getter(AccessLevel.PRIVATE)
+	private transient AtomicInteger cursor;
+
+	public PooledDivision(Routing routing, int maxWidth, Long queueLimit) {
+		this.routing = routing;
+		this.maxWidth = maxWidth;
+		this.queueLimit = queueLimit;
+		this.cursor = new AtomicInteger();
+	}
+
+	/**
+	 * Only the root routes, and only once it has workers or its own queue is
+	 * full.
+	 */
+	@Override
+	public boolean isConditionValid(Actor<T> actor) {
+		return actor.getCb().isRoot()
+				&& (actor.hasPoolWorkers() || actor.getQueueSize() >= queueLimit);
+	}
+
+	@Override
+	public void executeSendingStrategy(Actor<T> actor, List<ActorMessage<T>> message) {
+		message.forEach(x -> select(actor).deliver(x, true));
+	}
+
+	@Override
+	public void executeLoadingStrategy(Actor<T> actor, List<ActorMessage<T>> message) {
+		message.forEach(x -> select(actor).deliver(x, false));
+	}
+
+	private Actor<T> select(Actor<T> root) {
+		List<Actor<T>> workers = root.getPoolWorkers();
+		int width = workers.size() + 1;
+		Actor<T> target;
+		switch (routing) {
+		case ROUND_ROBIN:
+			target = nodeAt(root, workers, Math.floorMod(cursor.getAndIncrement(), width));
+			break;
+		case LEAST_QUEUE_DEPTH:
+			target = root;
+			for (Actor<T> worker : workers) {
+				if (worker.getQueueSize() < target.getQueueSize())
+					target = worker;
+			}
+			break;
+		case POWER_OF_TWO_CHOICES:
+		default:
+			ThreadLocalRandom random = ThreadLocalRandom.current();
+			Actor<T> first = nodeAt(root, workers, random.nextInt(width));
+			Actor<T> second = nodeAt(root, workers, random.nextInt(width));
+			target = first.getQueueSize() <= second.getQueueSize() ? first : second;
+			break;
+		}
+		if (target.getQueueSize() >= queueLimit) {
+			Actor<T> worker = root.addPoolWorker(maxWidth);
+			if (worker != null)
+				return worker;
+		}
+		return target;
+	}
+
+	private Actor<T> nodeAt(Actor<T> root, List<Actor<T>> workers, int index) {
+		return index == 0 ? root : workers.get(index - 1);
+	}
+}
@@ -0,0 +1,12 @@
+package par.core.actor.exceptions;
+
+import java.util.List;
+
+public class CyclicDependencyException extends RuntimeException {
+
+	private static final long serialVersionUID = 6284390133570127614L;
+
+	public CyclicDependencyException(List<String> cycle) {
+		super(String.format("The waitList of the topics forms a cycle: %s", String.join(" -> ", cycle)));
+	}
+}
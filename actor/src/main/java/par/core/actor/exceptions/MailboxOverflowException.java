@@ -0,0 +1,10 @@
+package par.core.actor.exceptions;
+
+public class MailboxOverflowException extends RuntimeException {
+
+	private static final long serialVersionUID = 4613620372452375196L;
+
+	public MailboxOverflowException(String topic, int capacity) {
+		super(String.format("The mailbox of the [%s] topic is full (capacity %d)", topic, capacity));
+	}
+}
@@ -0,0 +1,10 @@
+package par.core.actor.exceptions;
+
+public class UnrepliedMessageException extends RuntimeException {
+
+	private static final long serialVersionUID = -2838610950413470157L;
+
+	public UnrepliedMessageException(String topic, String id) {
+		super(String.format("The message %s of the [%s] topic left the mailbox without a reply", id, topic));
+	}
+}
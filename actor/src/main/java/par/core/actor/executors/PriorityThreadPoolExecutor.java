@@ -0,0 +1,98 @@
+package par.core.actor.executors;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import par.core.actor.annotations.ThreadSafe;
+import par.core.actor.base.ActorPriority;
+import par.core.actor.base.node.Actor;
+
+/**
+ * Fixed sized pool that runs the waiting actors according to their
+ * {@code ActorPriority}.<br>
+ * Every submitted task gets a virtual deadline: submission time plus a delay
+ * that grows with the priority value. The queue is ordered by this deadline so
+ * <ul>
+ * <li>higher priorities jump ahead of the lower ones,</li>
+ * <li>tasks of the same priority run in FIFO order,</li>
+ * <li>a low priority task that has waited long enough overtakes newer high
+ * priority tasks (aging), so it never starves.</li>
+ * </ul>
+ * 
+ * @author osman.yasal
+ *
+ */
+@ThreadSafe
+public class PriorityThreadPoolExecutor extends ThreadPoolExecutor {
+
+	// distance between two neighbour priority levels, @see ActorPriority
+	private static final int PRIORITY_STEP = 100;
+
+	private final AtomicLong sequence;
+
+	// how long a queued task waits to gain one priority level.
+	private final long agingNanos;
+
+	public PriorityThreadPoolExecutor(int size, long agingTime, TimeUnit unit) {
+		super(size, size, 0L, TimeUnit.MILLISECONDS, new PriorityBlockingQueue<Runnable>());
+		this.sequence = new AtomicLong();
+		this.agingNanos = unit.toNanos(agingTime);
+	}
+
+	@Override
+	public void execute(Runnable command) {
+		super.execute(command instanceof PriorityTask ? command : newTaskFor(command, null));
+	}
+
+	@Override
+	protected <V> RunnableFuture<V> newTaskFor(Callable<V> callable) {
+		return new PriorityTask<>(callable, deadlineOf(priorityOf(callable)), sequence.getAndIncrement());
+	}
+
+	@Override
+	protected <V> RunnableFuture<V> newTaskFor(Runnable runnable, V value) {
+		return new PriorityTask<>(runnable, value, deadlineOf(priorityOf(runnable)),
+				sequence.getAndIncrement());
+	}
+
+	private long deadlineOf(int priority) {
+		return System.nanoTime() + priority * agingNanos / PRIORITY_STEP;
+	}
+
+	private static int priorityOf(Object task) {
+		if (task instanceof Actor && ((Actor<?>) task).getPriority() != null)
+			return ((Actor<?>) task).getPriority().priority();
+		return ActorPriority.DEFAULT.priority();
+	}
+
+	private static final class PriorityTask<V> extends FutureTask<V> implements Comparable<PriorityTask<?>> {
+		private final long deadline;
+		private final long sequence;
+
+		private PriorityTask(Callable<V> callable, long deadline, long sequence) {
+			super(callable);
+			this.deadline = deadline;
+			this.sequence = sequence;
+		}
+
+		private PriorityTask(Runnable runnable, V value, long deadline, long sequence) {
+			super(runnable, value);
+			this.deadline = deadline;
+			this.sequence = sequence;
+		}
+
+		@Override
+		public int compareTo(PriorityTask<?> o) {
+			// nanoTime values must be compared by their difference
+			long diff = deadline - o.deadline;
+			if (diff != 0)
+				return diff < 0 ? -1 : 1;
+			return Long.compare(sequence, o.sequence);
+		}
+	}
+}
@@ -2,25 +2,51 @@ package par.core.actor.factories;
 
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.PriorityBlockingQueue;
-import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.TimeUnit;
 
+import par.core.actor.executors.PriorityThreadPoolExecutor;
+
 public final class ExecutorFactory {
 
 	public enum ThreadPoolTypes {
-		FIXED_SIZED, CACHED_SIZED, PRIORITIZED
+		FIXED_SIZED, CACHED_SIZED, PRIORITIZED, VIRTUAL, FORK_JOIN
 	}
 
+	// a queued task of the PRIORITIZED pool gains one priority level per this
+	// amount of waiting time.
+	public static final long DEFAULT_PRIORITY_AGING_MILLIS = 100L;
+
 	private ExecutorFactory() {
 	}
 
+	/**
+	 * @param poolType
+	 * @param size     ignored by {@code CACHED_SIZED} and {@code VIRTUAL} pools.
+	 * @return
+	 */
 	public static ExecutorService getExecutor(ThreadPoolTypes poolType, int size) {
+		return getExecutor(poolType, size, DEFAULT_PRIORITY_AGING_MILLIS);
+	}
+
+	/**
+	 * @param poolType
+	 * @param size
+	 * @param priorityAgingMillis only used by the {@code PRIORITIZED} pool.
+	 * @return
+	 */
+	public static ExecutorService getExecutor(ThreadPoolTypes poolType, int size, long priorityAgingMillis) {
 		switch (poolType) {
 		case CACHED_SIZED:
 			return Executors.newCachedThreadPool();
+		case VIRTUAL:
+			// a new virtual thread per activation, suits actors that block in operate()
+			return Executors.newVirtualThreadPerTaskExecutor();
+		case FORK_JOIN:
+			// asyncMode: local deques are FIFO, which suits never-joined actor tasks.
+			return new ForkJoinPool(size, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
 		case PRIORITIZED:
-			return new ThreadPoolExecutor(size, size, 0L, TimeUnit.MILLISECONDS, new PriorityBlockingQueue<Runnable>());
+			return new PriorityThreadPoolExecutor(size, priorityAgingMillis, TimeUnit.MILLISECONDS);
 		case FIXED_SIZED:
 		default:
 			return Executors.newFixedThreadPool(size);
@@ -0,0 +1,28 @@
+package par.core.actor.factories;
+
+import par.core.actor.ids.IdGenerator;
+import par.core.actor.ids.LazyIdGenerator;
+import par.core.actor.ids.SequenceIdGenerator;
+import par.core.actor.ids.UuidIdGenerator;
+
+public final class IdGeneratorFactory {
+
+	public enum IdGeneratorTypes {
+		UUID, SEQUENCE, LAZY
+	}
+
+	private IdGeneratorFactory() {
+	}
+
+	public static IdGenerator getIdGenerator(IdGeneratorTypes type) {
+		switch (type) {
+		case SEQUENCE:
+			return new SequenceIdGenerator();
+		case LAZY:
+			return new LazyIdGenerator();
+		case UUID:
+		default:
+			return new UuidIdGenerator();
+		}
+	}
+}
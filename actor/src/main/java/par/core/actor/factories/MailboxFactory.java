@@ -0,0 +1,46 @@
+package par.core.actor.factories;
+
+import java.nio.file.Paths;
+
+import par.core.actor.base.node.configs.ActorConfig;
+import par.core.actor.mailbox.LinkedMailbox;
+import par.core.actor.mailbox.Mailbox;
+import par.core.actor.mailbox.MpscMailbox;
+import par.core.actor.mailbox.SpillingMailbox;
+
+public final class MailboxFactory {
+
+	public enum MailboxTypes {
+		LINKED, MPSC
+	}
+
+	private static final String MISSING_CODEC = "A messageCodec is required to spill messages of the [%s] topic";
+
+	private MailboxFactory() {
+	}
+
+	/**
+	 * Creates the mailbox of the configured type, wrapped by a disk tier when a
+	 * spill watermark is set.
+	 */
+	public static <T> Mailbox<T> getMailbox(ActorConfig<T> config) {
+		Mailbox<T> mailbox = getMailbox(config.getMailboxType());
+		if (config.getSpillWatermark() <= 0)
+			return mailbox;
+		if (config.getMessageCodec() == null)
+			throw new IllegalArgumentException(String.format(MISSING_CODEC, config.getTopic().getName()));
+		return new SpillingMailbox<>(mailbox, config.getSpillWatermark(), Paths.get(config.getSpillDirectory()),
+				config.getTopic().getName().replaceAll("[^A-Za-z0-9_-]", "_") + "-", config.getSpillSegmentSize(),
+				config.getMessageCodec());
+	}
+
+	public static <T> Mailbox<T> getMailbox(MailboxTypes mailboxType) {
+		switch (mailboxType) {
+		case MPSC:
+			return new MpscMailbox<>();
+		case LINKED:
+		default:
+			return new LinkedMailbox<>();
+		}
+	}
+}
@@ -0,0 +1,27 @@
+package par.core.actor.ids;
+
+import par.core.actor.base.ActorMessage;
+import par.core.actor.base.ControlBlock;
+
+/**
+ * Generates the ids of the messages and the nodes of a cluster.<br>
+ * Ids are assigned when a message is enqueued, a message that already has an
+ * id keeps it.
+ * 
+ * @author osman.yasal
+ *
+ */
+public interface IdGenerator {
+
+	String nextId();
+
+	default void assign(ActorMessage<?> message) {
+		if (!message.hasId())
+			message.assignId(nextId());
+	}
+
+	default void assign(ControlBlock cb) {
+		if (!cb.hasId())
+			cb.assignId(nextId());
+	}
+}
@@ -0,0 +1,33 @@
+package par.core.actor.ids;
+
+import java.util.UUID;
+
+import par.core.actor.annotations.ThreadSafe;
+import par.core.actor.base.ActorMessage;
+import par.core.actor.base.ControlBlock;
+
+/**
+ * Doesn't assign any id, messages and nodes generate a UUID the first time
+ * {@code getId()} is called. Messages whose id is never read cost nothing.
+ * 
+ * @author osman.yasal
+ *
+ */
+@ThreadSafe
+public final class LazyIdGenerator implements IdGenerator {
+
+	@Override
+	public String nextId() {
+		return UUID.randomUUID().toString();
+	}
+
+	@Override
+	public void assign(ActorMessage<?> message) {
+		// generated on the first read.
+	}
+
+	@Override
+	public void assign(ControlBlock cb) {
+		// generated on the first read.
+	}
+}
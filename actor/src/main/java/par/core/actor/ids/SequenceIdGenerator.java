@@ -0,0 +1,39 @@
+package par.core.actor.ids;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import par.core.actor.annotations.ThreadSafe;
+import par.core.actor.base.ActorMessage;
+
+/**
+ * Monotonic long sequence of a cluster.<br>
+ * The sequence starts from the creation time shifted by 20 bits, so the ids of
+ * a restarted cluster don't collide with the ids of the messages replayed from
+ * a journal unless the previous run produced more than a million ids per
+ * millisecond.<br>
+ * Message ids are kept as longs, they are converted to a String only if they
+ * are read. (e.g. by a journal)
+ * 
+ * @author osman.yasal
+ *
+ */
+@ThreadSafe
+public final class SequenceIdGenerator implements IdGenerator {
+
+	private final AtomicLong sequence;
+
+	public SequenceIdGenerator() {
+		this.sequence = new AtomicLong(System.currentTimeMillis() << 20);
+	}
+
+	@Override
+	public String nextId() {
+		return Long.toString(sequence.incrementAndGet());
+	}
+
+	@Override
+	public void assign(ActorMessage<?> message) {
+		if (!message.hasId())
+			message.assignId(sequence.incrementAndGet());
+	}
+}
@@ -0,0 +1,21 @@
+package par.core.actor.ids;
+
+import java.util.UUID;
+
+import par.core.actor.annotations.ThreadSafe;
+
+/**
+ * Random UUIDs, unique across clusters and processes but each id goes through
+ * {@code SecureRandom} and a 36 char string.
+ * 
+ * @author osman.yasal
+ *
+ */
+@ThreadSafe
+public final class UuidIdGenerator implements IdGenerator {
+
+	@Override
+	public String nextId() {
+		return UUID.randomUUID().toString();
+	}
+}
@@ -0,0 +1,17 @@
+package par.core.actor.journal;
+
+/**
+ * Defines when the journaled messages are forced to the disk.
+ * 
+ * @author osman.yasal
+ *
+ */
+public enum JournalSyncMode {
+	// the topic isn't journaled.
+	OFF,
+	// every enqueue waits for its own fsync.
+	PER_MESSAGE,
+	// concurrent enqueues share a single fsync, the first waiting sender syncs
+	// on behalf of the others.
+	GROUP_COMMIT
+}
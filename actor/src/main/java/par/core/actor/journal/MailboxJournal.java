@@ -0,0 +1,469 @@
+package par.core.actor.journal;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import par.core.actor.annotations.GuardedBy;
+import par.core.actor.annotations.ThreadSafe;
+import par.core.actor.base.ActorMessage;
+import par.core.actor.serializers.MessageCodec;
+
+/**
+ * Write-ahead log of a topic's mailboxes.<br>
+ * Every enqueued message is appended to the log before it reaches a mailbox
+ * and acknowledged once it's consumed. After a crash the messages that are not
+ * acknowledged are read back by {@code recover()}.
+ * <ul>
+ * <li>log files : [type][seq][length][payload][crc] and [type][seq][crc]
+ * records, rolled over by size. A record that is torn by a crash or
+ * otherwise malformed ends the file, it's cut off on recovery.</li>
+ * <li>checkpoint : the sequence below which every message is consumed plus
+ * the consumed sequences above it, written periodically. log files that only
+ * contain older messages are deleted after a checkpoint.</li>
+ * </ul>
+ * Messages are identified by their ids, sending the same message object again
+ * while it's still in flight doesn't journal it twice.<br>
+ * Delivery is at-least-once, a message that was processed but not yet
+ * acknowledged is replayed.
+ * 
+ * @author osman.yasal
+ *
+ * @param <T> : actor message type.
+ */
+@ThreadSafe
+public final class MailboxJournal<T> {
+
+	private static final byte ENQUEUE = 1;
+	private static final byte ACK = 2;
+	private static final int CHECKSUM_SIZE = Integer.BYTES;
+	private static final int ACK_HEADER_SIZE = Byte.BYTES + Long.BYTES;
+	private static final int ENQUEUE_HEADER_SIZE = ACK_HEADER_SIZE + Integer.BYTES;
+	private static final String LOG_SUFFIX = ".log";
+	private static final String CHECKPOINT = "checkpoint";
+	private static final String CHECKPOINT_TMP = "checkpoint.tmp";
+	private static final long MAX_FILE_SIZE = 64L * 1024 * 1024;
+	private static final int CHECKPOINT_INTERVAL = 4096;
+
+	private final Path directory;
+	private final MessageCodec<T> codec;
+	private final JournalSyncMode syncMode;
+
+	// message id -> sequence of the messages that are not acknowledged yet.
+	private final Map<String, Long> inFlight;
+
+	private final Lock writeLock;
+
+	// first sequence -> path of the log files, the last one is appended.
+	@GuardedBy("writeLock")
+	private final TreeMap<Long, Path> logFiles;
+
+	@GuardedBy("writeLock")
+	private FileChannel channel;
+
+	@GuardedBy("writeLock")
+	private long fileSize;
+
+	@GuardedBy("writeLock")
+	private long nextSequence;
+
+	// every sequence below the watermark is acknowledged.
+	@GuardedBy("writeLock")
+	private long watermark;
+
+	@GuardedBy("writeLock")
+	private final TreeSet<Long> ackedAboveWatermark;
+
+	@GuardedBy("writeLock")
+	private int acksSinceCheckpoint;
+
+	// number of written records, compared with durableMark by group commit.
+	private volatile long writtenMark;
+
+	private final Lock syncLock;
+
+	@GuardedBy("syncLock")
+	private final Condition synced;
+
+	@GuardedBy("syncLock")
+	private long durableMark;
+
+	@GuardedBy("syncLock")
+	private boolean isSyncing;
+
+	public MailboxJournal(Path directory, MessageCodec<T> codec, JournalSyncMode syncMode) {
+		this.directory = directory;
+		this.codec = codec;
+		this.syncMode = syncMode;
+		this.inFlight = new ConcurrentHashMap<>();
+		this.writeLock = new ReentrantLock();
+		this.logFiles = new TreeMap<>();
+		this.ackedAboveWatermark = new TreeSet<>();
+		this.syncLock = new ReentrantLock();
+		this.synced = syncLock.newCondition();
+	}
+
+	/**
+	 * Reads the checkpoint and the log files, returns the messages that are not
+	 * acknowledged in their enqueue order and starts a new log file for the new
+	 * messages. must be called once before the journal is used.
+	 * 
+	 * @return
+	 */
+	public List<ActorMessage<T>> recover() {
+		writeLock.lock();
+		try {
+			Files.createDirectories(directory);
+			readCheckpoint();
+			TreeMap<Long, ActorMessage<T>> pending = new TreeMap<>();
+			long maxSequence = watermark - 1;
+			for (Path path : listLogFiles()) {
+				logFiles.put(firstSequenceOf(path), path);
+				maxSequence = Math.max(maxSequence, readLogFile(path, pending));
+			}
+			pending.keySet().removeAll(ackedAboveWatermark);
+			pending.forEach((sequence, message) -> inFlight.put(message.getId(), sequence));
+			// the acknowledgements read from the logs move the watermark as well.
+			for (long sequence = watermark; sequence <= maxSequence; sequence++) {
+				if (!pending.containsKey(sequence))
+					advanceWatermark(sequence);
+			}
+			this.nextSequence = maxSequence + 1;
+			rollLogFile();
+			return new ArrayList<>(pending.values());
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	/**
+	 * Appends the message to the log, returns once the record is durable
+	 * according to the sync mode. Already journaled messages are skipped.
+	 */
+	public void append(ActorMessage<T> message) {
+		if (isJournaled(message))
+			return;
+		long mark;
+		writeLock.lock();
+		try {
+			if (!writeEnqueue(message))
+				return;
+			mark = writtenMark;
+			if (syncMode == JournalSyncMode.PER_MESSAGE)
+				channel.force(false);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			writeLock.unlock();
+		}
+		if (syncMode == JournalSyncMode.GROUP_COMMIT)
+			awaitDurable(mark);
+	}
+
+	/**
+	 * Appends all messages with a single sync.
+	 */
+	public void appendAll(Collection<ActorMessage<T>> messageList) {
+		long mark;
+		writeLock.lock();
+		try {
+			boolean isWritten = false;
+			for (ActorMessage<T> message : messageList)
+				isWritten |= writeEnqueue(message);
+			if (!isWritten)
+				return;
+			mark = writtenMark;
+			if (syncMode == JournalSyncMode.PER_MESSAGE)
+				channel.force(false);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			writeLock.unlock();
+		}
+		if (syncMode == JournalSyncMode.GROUP_COMMIT)
+			awaitDurable(mark);
+	}
+
+	/**
+	 * Marks the message as consumed. acknowledgements are not synced on their
+	 * own, a lost acknowledgement only causes a duplicate replay.
+	 */
+	public void acknowledge(ActorMessage<T> message) {
+		Long sequence = inFlight.remove(message.getId());
+		if (sequence == null)
+			return;
+		writeLock.lock();
+		try {
+			ByteBuffer record = ByteBuffer.allocate(ACK_HEADER_SIZE + CHECKSUM_SIZE);
+			record.put(ACK).putLong(sequence);
+			record.putInt(checksum(record)).flip();
+			write(record);
+			advanceWatermark(sequence);
+			if (++acksSinceCheckpoint >= CHECKPOINT_INTERVAL)
+				checkpoint();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	public boolean isJournaled(ActorMessage<T> message) {
+		return inFlight.containsKey(message.getId());
+	}
+
+	/**
+	 * Writes a final checkpoint and closes the log file.
+	 */
+	public void close() {
+		writeLock.lock();
+		try {
+			if (channel == null)
+				return;
+			channel.force(false);
+			checkpoint();
+			channel.close();
+			channel = null;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			writeLock.unlock();
+		}
+	}
+
+	@GuardedBy("writeLock")
+	private boolean writeEnqueue(ActorMessage<T> message) throws IOException {
+		if (inFlight.containsKey(message.getId()))
+			return false;
+		byte[] payload = codec.encode(message);
+		long sequence = nextSequence++;
+		ByteBuffer record = ByteBuffer.allocate(ENQUEUE_HEADER_SIZE + payload.length + CHECKSUM_SIZE);
+		record.put(ENQUEUE).putLong(sequence).putInt(payload.length).put(payload);
+		record.putInt(checksum(record)).flip();
+		write(record);
+		inFlight.put(message.getId(), sequence);
+		return true;
+	}
+
+	@GuardedBy("writeLock")
+	private void write(ByteBuffer record) throws IOException {
+		if (channel == null)
+			throw new ClosedChannelException();
+		if (fileSize + record.remaining() > MAX_FILE_SIZE)
+			rollLogFile();
+		while (record.hasRemaining())
+			fileSize += channel.write(record);
+		writtenMark++;
+	}
+
+	/**
+	 * Group commit : the first sender that needs a sync becomes the leader and
+	 * forces every record written so far, the others wait for it.
+	 */
+	private void awaitDurable(long mark) {
+		syncLock.lock();
+		try {
+			while (durableMark < mark) {
+				if (isSyncing) {
+					synced.awaitUninterruptibly();
+					continue;
+				}
+				isSyncing = true;
+				long target = writtenMark;
+				syncLock.unlock();
+				try {
+					forceCurrentChannel();
+				} finally {
+					syncLock.lock();
+					isSyncing = false;
+					durableMark = Math.max(durableMark, target);
+					synced.signalAll();
+				}
+			}
+		} finally {
+			syncLock.unlock();
+		}
+	}
+
+	private void forceCurrentChannel() {
+		FileChannel current = channel;
+		try {
+			if (current != null)
+				current.force(false);
+		} catch (ClosedChannelException e) {
+			// rolled over meanwhile, the old file is forced before it's closed.
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	@GuardedBy("writeLock")
+	private void rollLogFile() throws IOException {
+		if (channel != null) {
+			channel.force(false);
+			channel.close();
+		}
+		Path path = directory.resolve(String.format("%020d%s", nextSequence, LOG_SUFFIX));
+		channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.APPEND);
+		fileSize = channel.size();
+		logFiles.put(nextSequence, path);
+	}
+
+	@GuardedBy("writeLock")
+	private void advanceWatermark(long sequence) {
+		if (sequence != watermark) {
+			ackedAboveWatermark.add(sequence);
+			return;
+		}
+		watermark++;
+		while (!ackedAboveWatermark.isEmpty() && ackedAboveWatermark.first() == watermark) {
+			ackedAboveWatermark.pollFirst();
+			watermark++;
+		}
+	}
+
+	/**
+	 * Persists the consumption offsets atomically and deletes the log files whose
+	 * messages are all consumed.
+	 */
+	@GuardedBy("writeLock")
+	private void checkpoint() throws IOException {
+		acksSinceCheckpoint = 0;
+		Path tmp = directory.resolve(CHECKPOINT_TMP);
+		try (OutputStream os = Files.newOutputStream(tmp); DataOutputStream out = new DataOutputStream(os)) {
+			out.writeLong(watermark);
+			out.writeInt(ackedAboveWatermark.size());
+			for (Long sequence : ackedAboveWatermark)
+				out.writeLong(sequence);
+		}
+		try (FileChannel checkpointChannel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+			checkpointChannel.force(true);
+		}
+		Files.move(tmp, directory.resolve(CHECKPOINT), StandardCopyOption.ATOMIC_MOVE,
+				StandardCopyOption.REPLACE_EXISTING);
+
+		// a file can go once the next one starts below the watermark.
+		while (logFiles.size() > 1) {
+			Long second = logFiles.higherKey(logFiles.firstKey());
+			if (second > watermark)
+				break;
+			Files.deleteIfExists(logFiles.pollFirstEntry().getValue());
+		}
+	}
+
+	@GuardedBy("writeLock")
+	private void readCheckpoint() throws IOException {
+		Path path = directory.resolve(CHECKPOINT);
+		if (!Files.exists(path))
+			return;
+		try (InputStream is = Files.newInputStream(path); DataInputStream in = new DataInputStream(is)) {
+			watermark = in.readLong();
+			int count = in.readInt();
+			for (int i = 0; i < count; i++)
+				ackedAboveWatermark.add(in.readLong());
+		}
+	}
+
+	/**
+	 * Reads the records up to the end of the file or up to the first malformed
+	 * one, e.g. a record torn by a crash. The malformed tail is cut off, so the
+	 * records appended after the recovery aren't hidden behind it.
+	 * 
+	 * @return the max sequence of the file.
+	 */
+	private long readLogFile(Path path, Map<Long, ActorMessage<T>> pending) throws IOException {
+		long maxSequence = -1;
+		long fileSize = Files.size(path);
+		long validSize = 0;
+		try (InputStream is = new BufferedInputStream(Files.newInputStream(path));
+				DataInputStream in = new DataInputStream(is)) {
+			while (validSize < fileSize) {
+				byte type = in.readByte();
+				if (type != ENQUEUE && type != ACK)
+					break;
+				long sequence = in.readLong();
+				ByteBuffer record;
+				byte[] payload = null;
+				if (type == ENQUEUE) {
+					int length = in.readInt();
+					// a torn length field mustn't allocate more than the file has left.
+					if (length < 0 || length > fileSize - validSize - ENQUEUE_HEADER_SIZE)
+						break;
+					payload = new byte[length];
+					in.readFully(payload);
+					record = ByteBuffer.allocate(ENQUEUE_HEADER_SIZE + length + CHECKSUM_SIZE);
+					record.put(type).putLong(sequence).putInt(length).put(payload);
+				} else {
+					record = ByteBuffer.allocate(ACK_HEADER_SIZE + CHECKSUM_SIZE);
+					record.put(type).putLong(sequence);
+				}
+				if (in.readInt() != checksum(record))
+					break;
+				validSize += record.capacity();
+				if (payload == null)
+					pending.remove(sequence);
+				else if (sequence >= watermark)
+					pending.put(sequence, codec.decode(payload));
+				maxSequence = Math.max(maxSequence, sequence);
+			}
+		} catch (EOFException e) {
+			// a record torn by a crash.
+		}
+		if (validSize < fileSize) {
+			try (FileChannel file = FileChannel.open(path, StandardOpenOption.WRITE)) {
+				file.truncate(validSize);
+				file.force(true);
+			}
+		}
+		return maxSequence;
+	}
+
+	/**
+	 * @return CRC32C of the record up to its position.
+	 */
+	private static int checksum(ByteBuffer record) {
+		CRC32C crc = new CRC32C();
+		crc.update(record.array(), 0, record.position());
+		return (int) crc.getValue();
+	}
+
+	private List<Path> listLogFiles() throws IOException {
+		try (Stream<Path> stream = Files.list(directory)) {
+			return stream.filter(x -> x.getFileName().toString().endsWith(LOG_SUFFIX)).sorted()
+					.collect(Collectors.toList());
+		}
+	}
+
+	private static long firstSequenceOf(Path path) {
+		String name = path.getFileName().toString();
+		return Long.parseLong(name.substring(0, name.length() - LOG_SUFFIX.length()));
+	}
+}
@@ -0,0 +1,47 @@
+package par.core.actor.mailbox;
+
+/**
+ * Growable ring buffer of {@code double} values, the mailbox of the
+ * {@code DoubleActor}.<br>
+ * Must be guarded by the actor's queue lock.
+ * 
+ * @author osman.yasal
+ *
+ */
+public final class DoubleRingMailbox extends RingMailbox<Double, double[]> {
+
+	public DoubleRingMailbox() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public DoubleRingMailbox(int initialCapacity) {
+		super(new double[capacityFor(initialCapacity)]);
+	}
+
+	public void offerDouble(double value) {
+		int index = reserveTail(); // may replace the array
+		elements[index] = value;
+	}
+
+	/**
+	 * @throws java.util.NoSuchElementException if the mailbox is empty.
+	 */
+	public double pollDouble() {
+		return elements[releaseHead()];
+	}
+
+	@Override
+	protected double[] newArray(int length) {
+		return new double[length];
+	}
+
+	@Override
+	protected Double get(double[] values, int index) {
+		return values[index];
+	}
+
+	@Override
+	protected void set(double[] values, int index, Double value) {
+		values[index] = value;
+	}
+}
@@ -0,0 +1,47 @@
+package par.core.actor.mailbox;
+
+/**
+ * Growable ring buffer of {@code int} values, the mailbox of the
+ * {@code IntActor}.<br>
+ * Must be guarded by the actor's queue lock.
+ * 
+ * @author osman.yasal
+ *
+ */
+public final class IntRingMailbox extends RingMailbox<Integer, int[]> {
+
+	public IntRingMailbox() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public IntRingMailbox(int initialCapacity) {
+		super(new int[capacityFor(initialCapacity)]);
+	}
+
+	public void offerInt(int value) {
+		int index = reserveTail(); // may replace the array
+		elements[index] = value;
+	}
+
+	/**
+	 * @throws java.util.NoSuchElementException if the mailbox is empty.
+	 */
+	public int pollInt() {
+		return elements[releaseHead()];
+	}
+
+	@Override
+	protected int[] newArray(int length) {
+		return new int[length];
+	}
+
+	@Override
+	protected Integer get(int[] values, int index) {
+		return values[index];
+	}
+
+	@Override
+	protected void set(int[] values, int index, Integer value) {
+		values[index] = value;
+	}
+}
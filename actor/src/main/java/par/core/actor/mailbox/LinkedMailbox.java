@@ -0,0 +1,77 @@
+package par.core.actor.mailbox;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.List;
+
+import par.core.actor.base.ActorMessage;
+
+/**
+ * The default mailbox, a plain {@code LinkedList} that must be guarded by the
+ * actor's queue lock.
+ * 
+ * @author osman.yasal
+ *
+ * @param <T> : actor message type.
+ */
+public final class LinkedMailbox<T> implements Mailbox<T> {
+
+	private final LinkedList<ActorMessage<T>> queue;
+
+	public LinkedMailbox() {
+		this.queue = new LinkedList<>();
+	}
+
+	@Override
+	public boolean offer(ActorMessage<T> message) {
+		return queue.add(message);
+	}
+
+	@Override
+	public ActorMessage<T> poll() {
+		return queue.pollFirst();
+	}
+
+	@Override
+	public ActorMessage<T> peek() {
+		return queue.peekFirst();
+	}
+
+	@Override
+	public int drainTo(Collection<? super ActorMessage<T>> target, int maxMessages) {
+		int count = 0;
+		while (count < maxMessages && !queue.isEmpty()) {
+			target.add(queue.pollFirst());
+			count++;
+		}
+		return count;
+	}
+
+	@Override
+	public List<ActorMessage<T>> drain() {
+		List<ActorMessage<T>> result = new ArrayList<>(queue);
+		queue.clear();
+		return result;
+	}
+
+	@Override
+	public void prependAll(List<ActorMessage<T>> messageList) {
+		queue.addAll(0, messageList);
+	}
+
+	@Override
+	public int size() {
+		return queue.size();
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return queue.isEmpty();
+	}
+
+	@Override
+	public boolean isConcurrent() {
+		return false;
+	}
+}
@@ -0,0 +1,47 @@
+package par.core.actor.mailbox;
+
+/**
+ * Growable ring buffer of {@code long} values, the mailbox of the
+ * {@code LongActor}.<br>
+ * Must be guarded by the actor's queue lock.
+ * 
+ * @author osman.yasal
+ *
+ */
+public final class LongRingMailbox extends RingMailbox<Long, long[]> {
+
+	public LongRingMailbox() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	public LongRingMailbox(int initialCapacity) {
+		super(new long[capacityFor(initialCapacity)]);
+	}
+
+	public void offerLong(long value) {
+		int index = reserveTail(); // may replace the array
+		elements[index] = value;
+	}
+
+	/**
+	 * @throws java.util.NoSuchElementException if the mailbox is empty.
+	 */
+	public long pollLong() {
+		return elements[releaseHead()];
+	}
+
+	@Override
+	protected long[] newArray(int length) {
+		return new long[length];
+	}
+
+	@Override
+	protected Long get(long[] values, int index) {
+		return values[index];
+	}
+
+	@Override
+	protected void set(long[] values, int index, Long value) {
+		values[index] = value;
+	}
+}
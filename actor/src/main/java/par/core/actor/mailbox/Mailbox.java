@@ -0,0 +1,77 @@
+package par.core.actor.mailbox;
+
+import java.util.Collection;
+import java.util.List;
+
+import par.core.actor.base.ActorMessage;
+
+/**
+ * A base mailbox template that holds the waiting messages of an actor.<br>
+ * 
+ * Mailboxes that are not {@code concurrent} are guarded by the actor's queue
+ * lock, concurrent ones are accessed without locking.
+ * 
+ * @author osman.yasal
+ *
+ * @param <T> : actor message type.
+ */
+public interface Mailbox<T> {
+
+	/**
+	 * Adds the message to the end of the mailbox.
+	 * 
+	 * @param message
+	 * @return true if the message is enqueued.
+	 */
+	boolean offer(ActorMessage<T> message);
+
+	/**
+	 * Removes and returns the head of the mailbox.
+	 * 
+	 * @return the head message or null if the mailbox is empty.
+	 */
+	ActorMessage<T> poll();
+
+	/**
+	 * Returns the head of the mailbox without removing it.
+	 * 
+	 * @return the head message or null if the mailbox is empty.
+	 */
+	ActorMessage<T> peek();
+
+	/**
+	 * Moves up to {@code maxMessages} messages from the head of the mailbox to
+	 * the target collection.
+	 * 
+	 * @param target
+	 * @param maxMessages
+	 * @return the number of moved messages.
+	 */
+	int drainTo(Collection<? super ActorMessage<T>> target, int maxMessages);
+
+	/**
+	 * Removes all the waiting messages and returns them in FIFO order.
+	 * 
+	 * @return
+	 */
+	List<ActorMessage<T>> drain();
+
+	/**
+	 * Puts the messages back to the head of the mailbox in the given order, so
+	 * they are polled before the waiting ones. Used for the drained messages
+	 * that the actor couldn't process.
+	 * 
+	 * @param messageList
+	 */
+	void prependAll(List<ActorMessage<T>> messageList);
+
+	int size();
+
+	boolean isEmpty();
+
+	/**
+	 * @return true if the mailbox can be used by many producers without any
+	 *         external lock.
+	 */
+	boolean isConcurrent();
+}
@@ -0,0 +1,144 @@
+package par.core.actor.mailbox;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import par.core.actor.annotations.GuardedBy;
+import par.core.actor.annotations.ThreadSafe;
+
+/**
+ * FIFO queue of byte records stored in memory-mapped segment files.<br>
+ * Records are appended to the last segment and read back sequentially from the
+ * first one, a segment file is deleted as soon as all of its records are read.
+ * <br>
+ * record layout : [int length][length bytes]
+ * 
+ * @author osman.yasal
+ *
+ */
+@ThreadSafe
+final class MappedSegmentQueue {
+
+	private static final int HEADER_SIZE = Integer.BYTES;
+	private static final String SEGMENT_SUFFIX = ".seg";
+
+	private final Path directory;
+	private final String prefix;
+	private final int segmentSize;
+
+	private final Lock lock;
+
+	@GuardedBy("lock")
+	private final Deque<Segment> segments;
+
+	private final AtomicLong size;
+
+	private static final class Segment {
+		private final Path path;
+		private final FileChannel channel;
+		private final MappedByteBuffer buffer;
+		private int writePosition;
+		private int readPosition;
+
+		private Segment(Path path, int capacity) throws IOException {
+			this.path = path;
+			this.channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+			this.buffer = channel.map(MapMode.READ_WRITE, 0, capacity);
+		}
+
+		private boolean hasRoom(int recordSize) {
+			return buffer.capacity() - writePosition >= recordSize;
+		}
+
+		private boolean isConsumed() {
+			return readPosition == writePosition;
+		}
+
+		private void delete() {
+			try {
+				channel.close();
+				Files.deleteIfExists(path);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+
+	MappedSegmentQueue(Path directory, String prefix, int segmentSize) {
+		this.directory = directory;
+		this.prefix = prefix;
+		this.segmentSize = segmentSize;
+		this.lock = new ReentrantLock();
+		this.segments = new ArrayDeque<>();
+		this.size = new AtomicLong();
+	}
+
+	void append(byte[] record) {
+		int recordSize = HEADER_SIZE + record.length;
+		lock.lock();
+		try {
+			Segment segment = segments.peekLast();
+			if (segment == null || !segment.hasRoom(recordSize)) {
+				segment = newSegment(Math.max(segmentSize, recordSize));
+				segments.addLast(segment);
+			}
+			segment.buffer.putInt(segment.writePosition, record.length);
+			segment.buffer.put(segment.writePosition + HEADER_SIZE, record);
+			segment.writePosition += recordSize;
+			size.incrementAndGet();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @return the oldest record or null if the queue is empty.
+	 */
+	byte[] poll() {
+		lock.lock();
+		try {
+			Segment segment = segments.peekFirst();
+			if (segment == null)
+				return null;
+			int length = segment.buffer.getInt(segment.readPosition);
+			byte[] record = new byte[length];
+			segment.buffer.get(segment.readPosition + HEADER_SIZE, record);
+			segment.readPosition += HEADER_SIZE + length;
+			size.decrementAndGet();
+			if (segment.isConsumed())
+				segments.pollFirst().delete();
+			return record;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	long size() {
+		return size.get();
+	}
+
+	boolean isEmpty() {
+		return size.get() == 0;
+	}
+
+	private Segment newSegment(int capacity) {
+		try {
+			Files.createDirectories(directory);
+			Path path = Files.createTempFile(directory, prefix, SEGMENT_SUFFIX);
+			return new Segment(path, capacity);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
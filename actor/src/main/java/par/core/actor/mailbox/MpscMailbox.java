@@ -0,0 +1,154 @@
+package par.core.actor.mailbox;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import par.core.actor.annotations.ThreadSafe;
+import par.core.actor.base.ActorMessage;
+
+/**
+ * Lock-free multi-producer/single-consumer mailbox based on linked nodes.<br>
+ * Producers only swap the head with a single {@code getAndSet}, so senders
+ * never wait for each other or for the consumer.<br>
+ * The tail is advanced by CAS, which keeps the mailbox safe when the actor is
+ * drained by a terminator while it's still being consumed.
+ * 
+ * @author osman.yasal
+ *
+ * @param <T> : actor message type.
+ */
+@ThreadSafe
+public final class MpscMailbox<T> implements Mailbox<T> {
+
+	private static final class Node<T> {
+		private volatile Node<T> next;
+		private ActorMessage<T> value;
+
+		private Node(ActorMessage<T> value) {
+			this.value = value;
+		}
+	}
+
+	// last inserted node, producers append here.
+	private final AtomicReference<Node<T>> head;
+
+	// stub node, the next of it is the oldest message.
+	private final AtomicReference<Node<T>> tail;
+
+	// maintained separately so that size() stays O(1)
+	private final AtomicInteger size;
+
+	public MpscMailbox() {
+		Node<T> stub = new Node<>(null);
+		this.head = new AtomicReference<>(stub);
+		this.tail = new AtomicReference<>(stub);
+		this.size = new AtomicInteger();
+	}
+
+	@Override
+	public boolean offer(ActorMessage<T> message) {
+		Node<T> node = new Node<>(message);
+		size.incrementAndGet();
+		Node<T> prev = head.getAndSet(node);
+		// the node is visible to the consumer once it's linked.
+		prev.next = node;
+		return true;
+	}
+
+	@Override
+	public ActorMessage<T> poll() {
+		while (true) {
+			Node<T> current = tail.get();
+			Node<T> next = current.next;
+			if (next == null)
+				return null;
+			if (tail.compareAndSet(current, next)) {
+				ActorMessage<T> value = next.value;
+				// next becomes the new stub, let the message be collected.
+				next.value = null;
+				size.decrementAndGet();
+				return value;
+			}
+		}
+	}
+
+	/**
+	 * Might return null if the head is polled concurrently.
+	 */
+	@Override
+	public ActorMessage<T> peek() {
+		Node<T> next = tail.get().next;
+		return next != null ? next.value : null;
+	}
+
+	@Override
+	public int drainTo(Collection<? super ActorMessage<T>> target, int maxMessages) {
+		int count = 0;
+		ActorMessage<T> message;
+		while (count < maxMessages && (message = poll()) != null) {
+			target.add(message);
+			count++;
+		}
+		return count;
+	}
+
+	@Override
+	public List<ActorMessage<T>> drain() {
+		List<ActorMessage<T>> result = new ArrayList<>(size());
+		ActorMessage<T> message;
+		while ((message = poll()) != null)
+			result.add(message);
+		return result;
+	}
+
+	/**
+	 * Links the messages in front of the current stub and swings the tail to a
+	 * new stub. The stub takes the last message, so a producer that is linking
+	 * to it right now still ends up behind the prepended messages.<br>
+	 * Only the consumer or a terminator holding the queue lock may prepend.
+	 */
+	@Override
+	public void prependAll(List<ActorMessage<T>> messageList) {
+		int count = messageList.size();
+		if (count == 0)
+			return;
+		Node<T> stub = new Node<>(null);
+		Node<T> last = stub;
+		for (int i = 0; i < count - 1; i++) {
+			Node<T> node = new Node<>(messageList.get(i));
+			last.next = node;
+			last = node;
+		}
+		size.addAndGet(count);
+		while (true) {
+			Node<T> current = tail.get();
+			current.value = messageList.get(count - 1);
+			last.next = current;
+			if (tail.compareAndSet(current, stub))
+				return;
+			// polled meanwhile, current isn't the stub anymore.
+			current.value = null;
+		}
+	}
+
+	/**
+	 * Might count messages whose producers are still linking them.
+	 */
+	@Override
+	public int size() {
+		return Math.max(0, size.get());
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return tail.get().next == null;
+	}
+
+	@Override
+	public boolean isConcurrent() {
+		return true;
+	}
+}
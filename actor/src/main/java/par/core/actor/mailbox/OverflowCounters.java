@@ -0,0 +1,53 @@
+package par.core.actor.mailbox;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import par.core.actor.annotations.ThreadSafe;
+
+/**
+ * Counts how many times each overflow policy fired for an actor.<br>
+ * For {@code BLOCK} the count is the number of senders that had to wait, the
+ * ones that gave up after the timeout are counted separately.
+ * 
+ * @author osman.yasal
+ *
+ */
+@ThreadSafe
+public final class OverflowCounters {
+
+	// filled once, only the adders change afterwards.
+	private final Map<OverflowPolicy, LongAdder> counters;
+	private final LongAdder blockTimeouts;
+
+	public OverflowCounters() {
+		this.counters = new EnumMap<>(OverflowPolicy.class);
+		for (OverflowPolicy policy : OverflowPolicy.values())
+			counters.put(policy, new LongAdder());
+		this.blockTimeouts = new LongAdder();
+	}
+
+	public void fired(OverflowPolicy policy) {
+		counters.get(policy).increment();
+	}
+
+	public void blockTimedOut() {
+		blockTimeouts.increment();
+	}
+
+	public long getCount(OverflowPolicy policy) {
+		return counters.get(policy).sum();
+	}
+
+	public long getBlockTimeoutCount() {
+		return blockTimeouts.sum();
+	}
+
+	public Map<OverflowPolicy, Long> toMap() {
+		Map<OverflowPolicy, Long> result = new EnumMap<>(OverflowPolicy.class);
+		counters.forEach((policy, counter) -> result.put(policy, counter.sum()));
+		return Collections.unmodifiableMap(result);
+	}
+}
@@ -0,0 +1,21 @@
+package par.core.actor.mailbox;
+
+/**
+ * Defines what happens to a message that arrives when the mailbox is full.
+ * 
+ * @author osman.yasal
+ *
+ */
+public enum OverflowPolicy {
+	// wait for free space up to the configured timeout, then reject. a node
+	// sending to itself or loading a passive node is rejected without waiting.
+	BLOCK,
+	// reject the message, the send methods throw MailboxOverflowException.
+	REJECT,
+	// remove the oldest waiting message to make space for the new one.
+	DROP_OLDEST,
+	// silently discard the new message.
+	DROP_NEWEST,
+	// send the message to the child actor.
+	DIVERT_TO_CHILD
+}
@@ -0,0 +1,230 @@
+package par.core.actor.mailbox;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import par.core.actor.base.ActorMessage;
+
+/**
+ * Growable ring buffer of primitive values, the base of the mailboxes of the
+ * primitive actors.<br>
+ * The index arithmetic and the bulk moves live here, the subclasses only read
+ * and write a single slot of their primitive array. The primitive methods
+ * don't allocate unless the buffer grows. The generic {@code Mailbox} methods
+ * box the values, message ids are not kept.<br>
+ * Must be guarded by the actor's queue lock.
+ *
+ * @author osman.yasal
+ *
+ * @param <T> : boxed value type.
+ * @param <A> : primitive array type.
+ */
+public abstract class RingMailbox<T, A> implements Mailbox<T> {
+
+	protected static final int DEFAULT_CAPACITY = 16;
+
+	// its length is always a power of two.
+	protected A elements;
+	private int mask;
+	private int head;
+	private int size;
+
+	/**
+	 * The subclass allocates the initial array, so the constructor doesn't call
+	 * an overridable method before the subclass is initialized.
+	 *
+	 * @param elements its length must be a power of two, @see capacityFor
+	 */
+	protected RingMailbox(A elements) {
+		this.elements = elements;
+		this.mask = Array.getLength(elements) - 1;
+	}
+
+	/**
+	 * @return the smallest power of two that holds the initial capacity.
+	 */
+	protected static int capacityFor(int initialCapacity) {
+		int capacity = 1;
+		while (capacity < initialCapacity)
+			capacity <<= 1;
+		return capacity;
+	}
+
+	protected abstract A newArray(int length);
+
+	protected abstract T get(A values, int index);
+
+	protected abstract void set(A values, int index, T value);
+
+	/**
+	 * Appends an empty slot to the tail, the caller fills it.
+	 *
+	 * @return index of the slot in {@code elements}.
+	 */
+	protected final int reserveTail() {
+		if (size == mask + 1)
+			grow(size + 1);
+		int index = (head + size) & mask;
+		size++;
+		return index;
+	}
+
+	/**
+	 * Removes the head slot, the caller reads it before any other write.
+	 *
+	 * @return index of the slot in {@code elements}.
+	 * @throws NoSuchElementException if the mailbox is empty.
+	 */
+	protected final int releaseHead() {
+		if (size == 0)
+			throw new NoSuchElementException();
+		int index = head;
+		head = (head + 1) & mask;
+		size--;
+		return index;
+	}
+
+	/**
+	 * Creates an array that {@code drainTo(target, maxValues)} can fill.
+	 */
+	public final A newBuffer(int length) {
+		return newArray(length);
+	}
+
+	/**
+	 * Moves up to {@code maxValues} values from the head of the mailbox to the
+	 * beginning of the target array.
+	 *
+	 * @return the number of moved values.
+	 */
+	public final int drainTo(A target, int maxValues) {
+		int count = Math.min(Math.min(maxValues, size), Array.getLength(target));
+		int firstPart = Math.min(count, mask + 1 - head);
+		System.arraycopy(elements, head, target, 0, firstPart);
+		System.arraycopy(elements, 0, target, firstPart, count - firstPart);
+		head = (head + count) & mask;
+		size -= count;
+		return count;
+	}
+
+	/**
+	 * Removes all the waiting values and returns them in FIFO order.
+	 */
+	public final A drainValues() {
+		A result = newArray(size);
+		drainTo(result, size);
+		return result;
+	}
+
+	/**
+	 * Unboxes the messages into a new array in their order.
+	 */
+	public final A toValues(List<ActorMessage<T>> messageList) {
+		A result = newArray(messageList.size());
+		for (int i = 0; i < messageList.size(); i++)
+			set(result, i, messageList.get(i).getMessage());
+		return result;
+	}
+
+	/**
+	 * Appends the value at {@code index} of the source array.
+	 */
+	public final void offerFrom(A source, int index) {
+		int tail = reserveTail(); // may replace the array
+		System.arraycopy(source, index, elements, tail, 1);
+	}
+
+	/**
+	 * Puts the values in {@code [from, to)} of the source array back to the
+	 * head in their order.
+	 */
+	public final void prependFrom(A source, int from, int to) {
+		int count = to - from;
+		if (size + count > mask + 1)
+			grow(size + count);
+		head = (head - count) & mask;
+		int firstPart = Math.min(count, mask + 1 - head);
+		System.arraycopy(source, from, elements, head, firstPart);
+		System.arraycopy(source, from + firstPart, elements, 0, count - firstPart);
+		size += count;
+	}
+
+	private void grow(int minCapacity) {
+		int capacity = mask + 1;
+		while (capacity < minCapacity)
+			capacity <<= 1;
+		A grown = newArray(capacity);
+		int firstPart = Math.min(size, mask + 1 - head);
+		System.arraycopy(elements, head, grown, 0, firstPart);
+		System.arraycopy(elements, 0, grown, firstPart, size - firstPart);
+		elements = grown;
+		mask = capacity - 1;
+		head = 0;
+	}
+
+	@Override
+	public final boolean offer(ActorMessage<T> message) {
+		int tail = reserveTail(); // may replace the array
+		set(elements, tail, message.getMessage());
+		return true;
+	}
+
+	@Override
+	public final ActorMessage<T> poll() {
+		return size == 0 ? null : new ActorMessage<>(get(elements, releaseHead()));
+	}
+
+	/**
+	 * Values don't have message objects to peek.
+	 */
+	@Override
+	public final ActorMessage<T> peek() {
+		return null;
+	}
+
+	@Override
+	public final int drainTo(Collection<? super ActorMessage<T>> target, int maxMessages) {
+		int count = 0;
+		while (count < maxMessages && size > 0) {
+			target.add(new ActorMessage<>(get(elements, releaseHead())));
+			count++;
+		}
+		return count;
+	}
+
+	@Override
+	public final List<ActorMessage<T>> drain() {
+		List<ActorMessage<T>> result = new ArrayList<>(size);
+		drainTo(result, size);
+		return result;
+	}
+
+	@Override
+	public final void prependAll(List<ActorMessage<T>> messageList) {
+		int count = messageList.size();
+		if (size + count > mask + 1)
+			grow(size + count);
+		head = (head - count) & mask;
+		for (int i = 0; i < count; i++)
+			set(elements, (head + i) & mask, messageList.get(i).getMessage());
+		size += count;
+	}
+
+	@Override
+	public final int size() {
+		return size;
+	}
+
+	@Override
+	public final boolean isEmpty() {
+		return size == 0;
+	}
+
+	@Override
+	public final boolean isConcurrent() {
+		return false;
+	}
+}
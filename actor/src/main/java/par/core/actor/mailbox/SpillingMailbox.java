@@ -0,0 +1,124 @@
+package par.core.actor.mailbox;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import par.core.actor.base.ActorMessage;
+import par.core.actor.serializers.MessageCodec;
+
+/**
+ * Two tiered mailbox, messages are kept in the heap until the watermark is
+ * reached and the rest is spilled to memory-mapped segment files.<br>
+ * Once spilling starts new messages keep going to the disk until it's drained,
+ * so the FIFO order of the messages is preserved over both tiers.
+ * 
+ * @author osman.yasal
+ *
+ * @param <T> : actor message type.
+ */
+public final class SpillingMailbox<T> implements Mailbox<T> {
+
+	private final Mailbox<T> heap;
+	private final MappedSegmentQueue disk;
+	private final MessageCodec<T> codec;
+	private final int watermark;
+
+	/**
+	 * @param heap        in-heap tier, also decides whether the mailbox is
+	 *                    concurrent.
+	 * @param watermark   max message count of the in-heap tier.
+	 * @param directory   where the segment files are created.
+	 * @param prefix      file name prefix of the segments.
+	 * @param segmentSize size of a segment file in bytes.
+	 * @param codec
+	 */
+	public SpillingMailbox(Mailbox<T> heap, int watermark, Path directory, String prefix, int segmentSize,
+			MessageCodec<T> codec) {
+		this.heap = heap;
+		this.watermark = watermark;
+		this.disk = new MappedSegmentQueue(directory, prefix, segmentSize);
+		this.codec = codec;
+	}
+
+	@Override
+	public boolean offer(ActorMessage<T> message) {
+		if (!disk.isEmpty() || heap.size() >= watermark) {
+			disk.append(codec.encode(message));
+			return true;
+		}
+		return heap.offer(message);
+	}
+
+	@Override
+	public ActorMessage<T> poll() {
+		ActorMessage<T> message = heap.poll();
+		if (message != null)
+			return message;
+		byte[] record = disk.poll();
+		return record != null ? codec.decode(record) : null;
+	}
+
+	/**
+	 * Only peeks the in-heap tier, spilled messages are not decoded for a peek.
+	 * returns null while the head is on the disk.
+	 */
+	@Override
+	public ActorMessage<T> peek() {
+		return heap.peek();
+	}
+
+	@Override
+	public int drainTo(Collection<? super ActorMessage<T>> target, int maxMessages) {
+		int count = 0;
+		ActorMessage<T> message;
+		while (count < maxMessages && (message = poll()) != null) {
+			target.add(message);
+			count++;
+		}
+		return count;
+	}
+
+	/**
+	 * Reads back the spilled messages as well, consumed segment files are
+	 * deleted.
+	 */
+	@Override
+	public List<ActorMessage<T>> drain() {
+		List<ActorMessage<T>> result = new ArrayList<>(size());
+		drainTo(result, Integer.MAX_VALUE);
+		return result;
+	}
+
+	/**
+	 * The in-heap tier is always ahead of the disk, so the messages go back to
+	 * it even if that exceeds the watermark for a while.
+	 */
+	@Override
+	public void prependAll(List<ActorMessage<T>> messageList) {
+		heap.prependAll(messageList);
+	}
+
+	@Override
+	public int size() {
+		return (int) Math.min(Integer.MAX_VALUE, heap.size() + disk.size());
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return heap.isEmpty() && disk.isEmpty();
+	}
+
+	@Override
+	public boolean isConcurrent() {
+		return heap.isConcurrent();
+	}
+
+	/**
+	 * @return the number of messages that are currently on the disk.
+	 */
+	public long getSpilledCount() {
+		return disk.size();
+	}
+}
@@ -0,0 +1,134 @@
+package par.core.actor.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import par.core.actor.annotations.ThreadSafe;
+
+/**
+ * Low overhead counters of a single node, updated by the senders and the
+ * executing thread without any lock.<br>
+ * Counters only grow, rates are computed by the readers from the differences
+ * of two snapshots.
+ * 
+ * @author osman.yasal
+ *
+ */
+@ThreadSafe
+public final class ActorMetrics {
+
+	// messages that entered the mailbox.
+	private final LongAdder arrivals;
+
+	// messages that are operated.
+	private final LongAdder processed;
+
+	// messages whose operate threw.
+	private final LongAdder failed;
+
+	// time spent while operating the processed messages.
+	private final LongAdder serviceNanos;
+	private final LatencyHistogram serviceTimes;
+
+	// time the dequeued messages waited in the mailbox.
+	private final LongAdder queueDelayNanos;
+	private final LongAdder queueDelayCount;
+	private final LongAccumulator maxQueueDelayNanos;
+	private final LatencyHistogram queueDelays;
+
+	public ActorMetrics() {
+		this.arrivals = new LongAdder();
+		this.processed = new LongAdder();
+		this.failed = new LongAdder();
+		this.serviceNanos = new LongAdder();
+		this.serviceTimes = new LatencyHistogram();
+		this.queueDelayNanos = new LongAdder();
+		this.queueDelayCount = new LongAdder();
+		this.maxQueueDelayNanos = new LongAccumulator(Math::max, 0);
+		this.queueDelays = new LatencyHistogram();
+	}
+
+	public void arrived() {
+		arrivals.increment();
+	}
+
+	public void arrived(long count) {
+		arrivals.add(count);
+	}
+
+	public void processed(long count, long nanos) {
+		if (count <= 0)
+			return;
+		processed.add(count);
+		serviceNanos.add(nanos);
+		// only operateBatch records many messages at once, they get the mean.
+		serviceTimes.record(nanos / count, count);
+	}
+
+	public void failed(long count) {
+		failed.add(count);
+	}
+
+	public void queueDelayed(long nanos) {
+		queueDelayNanos.add(nanos);
+		queueDelayCount.increment();
+		maxQueueDelayNanos.accumulate(nanos);
+		queueDelays.record(nanos);
+	}
+
+	public long getArrivals() {
+		return arrivals.sum();
+	}
+
+	public long getProcessed() {
+		return processed.sum();
+	}
+
+	public long getFailed() {
+		return failed.sum();
+	}
+
+	public long getServiceNanos() {
+		return serviceNanos.sum();
+	}
+
+	public long getQueueDelayCount() {
+		return queueDelayCount.sum();
+	}
+
+	public long getQueueDelayNanos() {
+		return queueDelayNanos.sum();
+	}
+
+	public long getMaxQueueDelayNanos() {
+		return maxQueueDelayNanos.get();
+	}
+
+	/**
+	 * @return mean time the messages waited in the mailbox, 0 if nothing is
+	 *         dequeued yet.
+	 */
+	public double getMeanQueueDelayNanos() {
+		long count = getQueueDelayCount();
+		return count == 0 ? 0 : (double) getQueueDelayNanos() / count;
+	}
+
+	/**
+	 * @param isActive
+	 * @param queueDepth
+	 * @return the metrics of a single node.
+	 */
+	public MetricsSnapshot snapshot(boolean isActive, long queueDepth) {
+		return new MetricsSnapshot(1, isActive ? 1 : 0, queueDepth, getArrivals(), getProcessed(), getFailed(),
+				queueDelays.snapshot(), serviceTimes.snapshot());
+	}
+
+	/**
+	 * @return mean service time of a message since the node is created, 0 if
+	 *         nothing is processed yet.
+	 */
+	public double getMeanServiceNanos() {
+		long count = getProcessed();
+		return count == 0 ? 0 : (double) getServiceNanos() / count;
+	}
+}
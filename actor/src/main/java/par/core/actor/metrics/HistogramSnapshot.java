@@ -0,0 +1,93 @@
+package par.core.actor.metrics;
+
+import java.util.Arrays;
+
+import par.core.actor.annotations.Immutable;
+
+/**
+ * Point in time copy of a {@code LatencyHistogram}. Since the buckets are
+ * copied one by one while the writers go on, the count and the sum might be
+ * a few records apart.
+ * 
+ * @author osman.yasal
+ *
+ */
+@Immutable
+public final class HistogramSnapshot {
+
+	public static final HistogramSnapshot EMPTY = new HistogramSnapshot(new long[LatencyHistogram.BUCKET_COUNT], 0,
+			0, 0);
+
+	private final long[] counts;
+	private final long count;
+	private final long sum;
+	private final long max;
+
+	HistogramSnapshot(long[] counts, long count, long sum, long max) {
+		this.counts = counts;
+		this.count = count;
+		this.sum = sum;
+		this.max = max;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public long getMaxNanos() {
+		return max;
+	}
+
+	public double getMeanNanos() {
+		return count == 0 ? 0 : (double) sum / count;
+	}
+
+	/**
+	 * @param percentile between 0 and 100.
+	 * @return the upper bound of the bucket that holds the percentile, never more
+	 *         than the max. 0 if nothing is recorded.
+	 */
+	public long getValueAtPercentile(double percentile) {
+		if (count == 0)
+			return 0;
+		long rank = Math.max(1, (long) Math.ceil(count * Math.min(100, Math.max(0, percentile)) / 100));
+		long seen = 0;
+		for (int i = 0; i < counts.length; i++) {
+			seen += counts[i];
+			if (seen >= rank)
+				return Math.min(max, LatencyHistogram.upperBoundOf(i));
+		}
+		return max;
+	}
+
+	public HistogramSnapshot merge(HistogramSnapshot other) {
+		long[] merged = Arrays.copyOf(counts, counts.length);
+		for (int i = 0; i < merged.length; i++)
+			merged[i] += other.counts[i];
+		return new HistogramSnapshot(merged, count + other.count, sum + other.sum, Math.max(max, other.max));
+	}
+
+	/**
+	 * @param earlier a snapshot of the same histogram taken before this one.
+	 * @return the values recorded between the two snapshots, the max is
+	 *         approximated by the highest bucket.
+	 */
+	public HistogramSnapshot since(HistogramSnapshot earlier) {
+		long[] delta = new long[counts.length];
+		long deltaCount = 0;
+		long deltaMax = 0;
+		for (int i = 0; i < delta.length; i++) {
+			delta[i] = Math.max(0, counts[i] - earlier.counts[i]);
+			deltaCount += delta[i];
+			if (delta[i] > 0)
+				deltaMax = Math.min(max, LatencyHistogram.upperBoundOf(i));
+		}
+		return new HistogramSnapshot(delta, deltaCount, Math.max(0, sum - earlier.sum), deltaMax);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("HistogramSnapshot(count=%d, mean=%.0f, p50=%d, p99=%d, p999=%d, max=%d)", count,
+				getMeanNanos(), getValueAtPercentile(50), getValueAtPercentile(99), getValueAtPercentile(99.9), max);
+	}
+}
@@ -0,0 +1,81 @@
+package par.core.actor.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import par.core.actor.annotations.ThreadSafe;
+
+/**
+ * Lock-free histogram of nanosecond durations. Every power of two is split
+ * into {@code SUB_BUCKETS} linear buckets, so a recorded value is off by at
+ * most 12.5% while the whole long range fits into a few hundred counters.<br>
+ * Recording is a single atomic increment, readers take a
+ * {@code HistogramSnapshot} without stopping the writers.
+ * 
+ * @author osman.yasal
+ *
+ */
+@ThreadSafe
+public final class LatencyHistogram {
+
+	static final int SUB_BITS = 3;
+	static final int SUB_BUCKETS = 1 << SUB_BITS;
+	static final int BUCKET_COUNT = (64 - SUB_BITS) * SUB_BUCKETS;
+
+	private final AtomicLongArray counts;
+	private final LongAdder sum;
+	private final LongAccumulator max;
+
+	public LatencyHistogram() {
+		this.counts = new AtomicLongArray(BUCKET_COUNT);
+		this.sum = new LongAdder();
+		this.max = new LongAccumulator(Math::max, 0);
+	}
+
+	public void record(long nanos) {
+		record(nanos, 1);
+	}
+
+	/**
+	 * Records the same value {@code count} times, e.g. the mean of a batch.
+	 */
+	public void record(long nanos, long count) {
+		if (count <= 0)
+			return;
+		long value = Math.max(0, nanos);
+		counts.addAndGet(indexOf(value), count);
+		sum.add(value * count);
+		max.accumulate(value);
+	}
+
+	public HistogramSnapshot snapshot() {
+		long[] copy = new long[BUCKET_COUNT];
+		long count = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			copy[i] = counts.get(i);
+			count += copy[i];
+		}
+		return new HistogramSnapshot(copy, count, sum.sum(), max.get());
+	}
+
+	static int indexOf(long value) {
+		if (value < SUB_BUCKETS)
+			return (int) value;
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+		return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+	}
+
+	/**
+	 * @return the largest value that falls into the bucket.
+	 */
+	static long upperBoundOf(int index) {
+		if (index < SUB_BUCKETS)
+			return index;
+		int exponent = index / SUB_BUCKETS + SUB_BITS - 1;
+		int sub = index % SUB_BUCKETS;
+		long lower = (long) (SUB_BUCKETS + sub) << (exponent - SUB_BITS);
+		return lower + (1L << (exponent - SUB_BITS)) - 1;
+	}
+}
@@ -0,0 +1,60 @@
+package par.core.actor.metrics;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.Setter;
+import lombok.experimental.Accessors;
+import par.core.actor.annotations.Immutable;
+
+/**
+ * Metrics of a node or of all nodes of a topic at a point in time, counters
+ * are accumulated since the nodes are created. Taking a snapshot doesn't stop
+ * the traffic.
+ * 
+ * @author osman.yasal
+ *
+ */
+@Immutable
+@Data
+@Accessors(chain = true)
+@AllArgsConstructor
+public final class MetricsSnapshot {
+
+	public static final MetricsSnapshot EMPTY = new MetricsSnapshot(0, 0, 0, 0, 0, 0, HistogramSnapshot.EMPTY,
+			HistogramSnapshot.EMPTY);
+
+	@Setter(AccessLevel.PRIVATE)
+	private int nodeCount;
+
+	@Setter(AccessLevel.PRIVATE)
+	private int activeNodeCount;
+
+	// waiting messages.
+	@Setter(AccessLevel.PRIVATE)
+	private long queueDepth;
+
+	@Setter(AccessLevel.PRIVATE)
+	private long enqueued;
+
+	@Setter(AccessLevel.PRIVATE)
+	private long processed;
+
+	// messages whose operate threw, they are counted as processed as well.
+	@Setter(AccessLevel.PRIVATE)
+	private long failed;
+
+	// time the messages waited in the mailbox.
+	@Setter(AccessLevel.PRIVATE)
+	private HistogramSnapshot queueWait;
+
+	// time spent in operate per message.
+	@Setter(AccessLevel.PRIVATE)
+	private HistogramSnapshot serviceTime;
+
+	public MetricsSnapshot merge(MetricsSnapshot other) {
+		return new MetricsSnapshot(nodeCount + other.nodeCount, activeNodeCount + other.activeNodeCount,
+				queueDepth + other.queueDepth, enqueued + other.enqueued, processed + other.processed,
+				failed + other.failed, queueWait.merge(other.queueWait), serviceTime.merge(other.serviceTime));
+	}
+}
@@ -0,0 +1,48 @@
+package par.core.actor.serializers;
+
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+
+import par.core.actor.annotations.ThreadSafe;
+import par.core.actor.base.ActorMessage;
+
+/**
+ * Json based message codec.
+ * 
+ * <pre>
+ * new GsonMessageCodec&lt;Long&gt;(Long.class)
+ * new GsonMessageCodec&lt;List&lt;String&gt;&gt;(new TypeToken&lt;List&lt;String&gt;&gt;() {}.getType())
+ * </pre>
+ * 
+ * @author osman.yasal
+ *
+ * @param <T> : actor message type.
+ */
+@ThreadSafe
+public final class GsonMessageCodec<T> implements MessageCodec<T> {
+
+	private final Gson gson;
+	private final Type type;
+
+	/**
+	 * @param messageType the type of {@code ActorMessage.message}
+	 */
+	public GsonMessageCodec(Type messageType) {
+		this.gson = new GsonBuilder().create();
+		this.type = TypeToken.getParameterized(ActorMessage.class, messageType).getType();
+	}
+
+	@Override
+	public byte[] encode(ActorMessage<T> message) {
+		return gson.toJson(message, type).getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Override
+	public ActorMessage<T> decode(byte[] bytes) {
+		return gson.fromJson(new String(bytes, StandardCharsets.UTF_8), type);
+	}
+}
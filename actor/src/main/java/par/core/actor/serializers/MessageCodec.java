@@ -0,0 +1,18 @@
+package par.core.actor.serializers;
+
+import par.core.actor.base.ActorMessage;
+
+/**
+ * Converts actor messages to bytes and back, used by the mailboxes that keep
+ * messages outside of the heap.
+ * 
+ * @author osman.yasal
+ *
+ * @param <T> : actor message type.
+ */
+public interface MessageCodec<T> {
+
+	byte[] encode(ActorMessage<T> message);
+
+	ActorMessage<T> decode(byte[] bytes);
+}
@@ -4,16 +4,20 @@ import java.awt.BasicStroke;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Toolkit;
+import java.io.File;
+import java.io.IOException;
 
 import javax.swing.JFrame;
 
 import org.jfree.chart.ChartFactory;
 import org.jfree.chart.ChartPanel;
+import org.jfree.chart.ChartUtils;
 import org.jfree.chart.JFreeChart;
 import org.jfree.chart.plot.PlotOrientation;
 import org.jfree.chart.plot.XYPlot;
 import org.jfree.chart.renderer.xy.XYLineAndShapeRenderer;
 import org.jfree.data.xy.XYSeries;
+import org.jfree.data.xy.XYSeriesCollection;
 
 /**
  * Used for drawing performance metrics.
@@ -27,11 +31,17 @@ public class LineChart extends JFrame {
 	private static final String PERFORMANCE_METRICS = "Performance Metrics";
 
 	public LineChart(String xName, String yName, XYSeries... dataSet) {
+		this(createChart(xName, yName, dataSet));
+	}
+
+	/**
+	 * Needs a display, use {@code createChart} or {@code saveAsPng} on headless
+	 * machines.
+	 */
+	public LineChart(JFreeChart chart) {
 		super(PERFORMANCE_METRICS);
-		JFreeChart chart = createChart(xName, yName, dataSet.length, dataSet);
 		ChartPanel panel = new ChartPanel(chart);
 		Dimension size = Toolkit.getDefaultToolkit().getScreenSize();
-		System.out.println(size);
 		panel.setPreferredSize(
 				new Dimension((int) Math.ceil(size.getWidth() / 2), (int) Math.ceil(size.getHeight() / 2)));
 		setContentPane(panel);
@@ -44,13 +54,31 @@ public class LineChart extends JFrame {
 		return this;
 	}
 
-	private JFreeChart createChart(String xName, String yName, int dataSetLength, XYSeries... dataset) {
-		JFreeChart chart = ChartFactory.createXYLineChart("", xName, yName,
-				Utils.convertXYSeriesListToCollection(dataset), PlotOrientation.VERTICAL, true, true, false);
-		return basicChartCustomization(chart, dataSetLength);
+	/**
+	 * Creates the chart without a window, works on headless machines as well.
+	 */
+	public static JFreeChart createChart(String xName, String yName, XYSeries... dataset) {
+		return createChart(xName, yName, Utils.convertXYSeriesListToCollection(dataset));
+	}
+
+	/**
+	 * Series added to the collection later on are drawn as well.
+	 */
+	public static JFreeChart createChart(String xName, String yName, XYSeriesCollection dataset) {
+		JFreeChart chart = ChartFactory.createXYLineChart("", xName, yName, dataset, PlotOrientation.VERTICAL, true,
+				true, false);
+		return basicChartCustomization(chart, dataset.getSeriesCount());
+	}
+
+	/**
+	 * Renders the chart into a PNG file without a display.
+	 */
+	public static void saveAsPng(File file, int width, int height, String xName, String yName, XYSeries... dataset)
+			throws IOException {
+		ChartUtils.saveChartAsPNG(file, createChart(xName, yName, dataset), width, height);
 	}
 
-	private JFreeChart basicChartCustomization(JFreeChart chart, int dataSetLength) {
+	private static JFreeChart basicChartCustomization(JFreeChart chart, int dataSetLength) {
 		XYPlot plot = chart.getXYPlot();
 		XYLineAndShapeRenderer renderer = new XYLineAndShapeRenderer();
 
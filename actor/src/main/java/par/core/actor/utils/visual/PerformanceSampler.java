@@ -0,0 +1,358 @@
+package par.core.actor.utils.visual;
+
+import java.awt.GraphicsEnvironment;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToDoubleFunction;
+
+import javax.swing.SwingUtilities;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.jfree.data.xy.XYSeries;
+import org.jfree.data.xy.XYSeriesCollection;
+
+import par.core.actor.annotations.GuardedBy;
+import par.core.actor.annotations.ThreadSafe;
+import par.core.actor.base.node.ActorCluster;
+import par.core.actor.metrics.HistogramSnapshot;
+import par.core.actor.metrics.MetricsSnapshot;
+
+/**
+ * Samples the metrics of a cluster periodically and keeps them as time series:
+ * throughput of the cluster, queue depth per topic, active node count and the
+ * p99 of the queue wait and service times of each interval.<br>
+ * With a display the series are drawn live into {@code LineChart} windows,
+ * headless machines (e.g. CI) export them as PNG and CSV files instead.
+ *
+ * <pre>
+ * PerformanceSampler sampler = new PerformanceSampler(cluster, 100, false).start();
+ * ...
+ * sampler.stop();
+ * sampler.exportPng(Paths.get("target/charts"), 1200, 600);
+ * sampler.exportCsv(Paths.get("target/charts/metrics.csv"));
+ * </pre>
+ *
+ * @author osman.yasal
+ *
+ */
+@ThreadSafe
+public final class PerformanceSampler {
+
+	private static final String TIME_AXIS = "time (s)";
+	private static final String THROUGHPUT = "throughput (msg/s)";
+	private static final String QUEUE_DEPTH = "queue depth";
+	private static final String ACTIVE_NODES = "active nodes";
+	private static final String LATENCY = "p99 latency (ms)";
+	private static final String QUEUE_WAIT = "p99 queue wait";
+	private static final String SERVICE_TIME = "p99 service time";
+	private static final String SAMPLING_FAILED = "Performance sampling failed";
+
+	private final ActorCluster cluster;
+	private final long intervalMillis;
+	private final boolean isLive;
+	private final Logger logger;
+	private final Lock lock;
+
+	@GuardedBy("lock")
+	private final List<Sample> samples;
+
+	@GuardedBy("lock")
+	private ScheduledExecutorService scheduler;
+
+	@GuardedBy("lock")
+	private long startNanos;
+
+	// topic of each queue depth column, in the order they showed up.
+	@GuardedBy("lock")
+	private final List<String> topics;
+
+	@GuardedBy("lock")
+	private final Map<String, Integer> topicIndexes;
+
+	// only the previous snapshots are kept, the deltas of the next interval need
+	// them.
+	@GuardedBy("lock")
+	private Map<String, MetricsSnapshot> lastSnapshots;
+
+	@GuardedBy("lock")
+	private double lastSeconds;
+
+	@GuardedBy("lock")
+	private long lastProcessed;
+
+	// only touched on the event dispatch thread.
+	private Map<String, XYSeries> liveSeries;
+	private Map<String, XYSeries> liveDepths;
+	private XYSeriesCollection liveDepthCollection;
+
+	/**
+	 * A row of the time series, only the plotted values are kept so a long run
+	 * doesn't hold a snapshot per topic and interval.
+	 */
+	private static final class Sample {
+		private static final long NO_DEPTH = -1;
+
+		private final double seconds;
+		// indexed by the topic indexes, NO_DEPTH if the topic was missing.
+		private final long[] queueDepths;
+		private double throughput;
+		private int activeNodes;
+		private double queueWaitMillis;
+		private double serviceMillis;
+
+		private Sample(double seconds, long[] queueDepths) {
+			this.seconds = seconds;
+			this.queueDepths = queueDepths;
+		}
+
+		private long getQueueDepth(int topicIndex) {
+			return topicIndex < queueDepths.length ? queueDepths[topicIndex] : NO_DEPTH;
+		}
+	}
+
+	/**
+	 * @param cluster
+	 * @param intervalMillis
+	 * @param isLive         draws live charts if a display is present.
+	 */
+	public PerformanceSampler(ActorCluster cluster, long intervalMillis, boolean isLive) {
+		this.cluster = cluster;
+		this.intervalMillis = intervalMillis;
+		this.isLive = isLive && !GraphicsEnvironment.isHeadless();
+		this.logger = LogManager.getLogger(PerformanceSampler.class);
+		this.lock = new ReentrantLock();
+		this.samples = new ArrayList<>();
+		this.topics = new ArrayList<>();
+		this.topicIndexes = new LinkedHashMap<>();
+	}
+
+	public PerformanceSampler start() {
+		lock.lock();
+		try {
+			if (scheduler != null)
+				return this;
+			scheduler = Executors.newSingleThreadScheduledExecutor(x -> {
+				Thread thread = new Thread(x, "performance-sampler");
+				thread.setDaemon(true);
+				return thread;
+			});
+			startNanos = System.nanoTime();
+			scheduler.scheduleAtFixedRate(this::sample, 0, intervalMillis, TimeUnit.MILLISECONDS);
+		} finally {
+			lock.unlock();
+		}
+		return this;
+	}
+
+	/**
+	 * Stops sampling, the collected series are kept for the exports.
+	 */
+	public PerformanceSampler stop() {
+		ScheduledExecutorService current;
+		lock.lock();
+		try {
+			current = scheduler;
+			scheduler = null;
+		} finally {
+			lock.unlock();
+		}
+		if (current != null) {
+			current.shutdown();
+			try {
+				current.awaitTermination(intervalMillis + 1000, TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		return this;
+	}
+
+	private void sample() {
+		try {
+			Map<String, MetricsSnapshot> snapshots = cluster.getMetricsSnapshots();
+			int activeNodes = cluster.getActiveNodeCount();
+			Sample sample;
+			List<String> names;
+			lock.lock();
+			try {
+				sample = new Sample((System.nanoTime() - startNanos) / 1e9, queueDepths(snapshots));
+				sample.activeNodes = activeNodes;
+				long processed = snapshots.values().stream().mapToLong(MetricsSnapshot::getProcessed).sum();
+				if (lastSnapshots != null)
+					measureInterval(sample, snapshots, processed);
+				lastSnapshots = snapshots;
+				lastSeconds = sample.seconds;
+				lastProcessed = processed;
+				samples.add(sample);
+				names = isLive ? new ArrayList<>(topics) : null;
+			} finally {
+				lock.unlock();
+			}
+			if (isLive)
+				SwingUtilities.invokeLater(() -> draw(sample, names));
+		} catch (Exception e) {
+			// a failing sample must not cancel the next ones.
+			logger.error(SAMPLING_FAILED, e);
+		}
+	}
+
+	@GuardedBy("lock")
+	private long[] queueDepths(Map<String, MetricsSnapshot> snapshots) {
+		for (String topic : snapshots.keySet()) {
+			if (!topicIndexes.containsKey(topic)) {
+				topicIndexes.put(topic, topics.size());
+				topics.add(topic);
+			}
+		}
+		long[] result = new long[topics.size()];
+		Arrays.fill(result, Sample.NO_DEPTH);
+		for (Map.Entry<String, MetricsSnapshot> topic : snapshots.entrySet())
+			result[topicIndexes.get(topic.getKey())] = topic.getValue().getQueueDepth();
+		return result;
+	}
+
+	@GuardedBy("lock")
+	private void measureInterval(Sample current, Map<String, MetricsSnapshot> snapshots, long processed) {
+		double seconds = current.seconds - lastSeconds;
+		if (seconds > 0)
+			current.throughput = Math.max(0, processed - lastProcessed) / seconds;
+		HistogramSnapshot queueWait = HistogramSnapshot.EMPTY;
+		HistogramSnapshot serviceTime = HistogramSnapshot.EMPTY;
+		for (Map.Entry<String, MetricsSnapshot> topic : snapshots.entrySet()) {
+			MetricsSnapshot before = lastSnapshots.get(topic.getKey());
+			MetricsSnapshot now = topic.getValue();
+			queueWait = queueWait.merge(before != null ? now.getQueueWait().since(before.getQueueWait())
+					: now.getQueueWait());
+			serviceTime = serviceTime.merge(before != null ? now.getServiceTime().since(before.getServiceTime())
+					: now.getServiceTime());
+		}
+		current.queueWaitMillis = queueWait.getValueAtPercentile(99) / 1e6;
+		current.serviceMillis = serviceTime.getValueAtPercentile(99) / 1e6;
+	}
+
+	private void draw(Sample sample, List<String> names) {
+		if (liveSeries == null) {
+			liveSeries = new LinkedHashMap<>();
+			new LineChart(TIME_AXIS, THROUGHPUT, liveSeries(THROUGHPUT)).draw();
+			new LineChart(TIME_AXIS, ACTIVE_NODES, liveSeries(ACTIVE_NODES)).draw();
+			new LineChart(TIME_AXIS, LATENCY, liveSeries(QUEUE_WAIT), liveSeries(SERVICE_TIME)).draw();
+			liveDepths = new LinkedHashMap<>();
+			liveDepthCollection = new XYSeriesCollection();
+			new LineChart(LineChart.createChart(TIME_AXIS, QUEUE_DEPTH, liveDepthCollection)).draw();
+		}
+		liveSeries.get(THROUGHPUT).add(sample.seconds, sample.throughput);
+		liveSeries.get(ACTIVE_NODES).add(sample.seconds, sample.activeNodes);
+		liveSeries.get(QUEUE_WAIT).add(sample.seconds, sample.queueWaitMillis);
+		liveSeries.get(SERVICE_TIME).add(sample.seconds, sample.serviceMillis);
+		// topics share a chart, the ones added later join it.
+		for (int i = 0; i < names.size(); i++) {
+			long depth = sample.getQueueDepth(i);
+			if (depth == Sample.NO_DEPTH)
+				continue;
+			XYSeries series = liveDepths.get(names.get(i));
+			if (series == null) {
+				series = new XYSeries(names.get(i));
+				liveDepths.put(names.get(i), series);
+				liveDepthCollection.addSeries(series);
+			}
+			series.add(sample.seconds, depth);
+		}
+	}
+
+	private XYSeries liveSeries(String name) {
+		return liveSeries.computeIfAbsent(name, XYSeries::new);
+	}
+
+	/**
+	 * Writes throughput.png, queue-depth.png, active-nodes.png and latency.png
+	 * into the directory, no display is needed.
+	 */
+	public void exportPng(Path directory, int width, int height) throws IOException {
+		List<Sample> rows = getSamples();
+		// taken after the rows, so it covers every topic of them.
+		List<String> names = getTopics();
+		Files.createDirectories(directory);
+		File dir = directory.toFile();
+		LineChart.saveAsPng(new File(dir, "throughput.png"), width, height, TIME_AXIS, THROUGHPUT,
+				series(THROUGHPUT, rows, x -> x.throughput));
+		LineChart.saveAsPng(new File(dir, "active-nodes.png"), width, height, TIME_AXIS, ACTIVE_NODES,
+				series(ACTIVE_NODES, rows, x -> x.activeNodes));
+		LineChart.saveAsPng(new File(dir, "latency.png"), width, height, TIME_AXIS, LATENCY,
+				series(QUEUE_WAIT, rows, x -> x.queueWaitMillis), series(SERVICE_TIME, rows, x -> x.serviceMillis));
+		List<XYSeries> depths = new ArrayList<>();
+		for (int i = 0; i < names.size(); i++) {
+			int topicIndex = i;
+			depths.add(series(names.get(i), rows, x -> Math.max(0, x.getQueueDepth(topicIndex))));
+		}
+		LineChart.saveAsPng(new File(dir, "queue-depth.png"), width, height, TIME_AXIS, QUEUE_DEPTH,
+				depths.toArray(new XYSeries[0]));
+	}
+
+	/**
+	 * Writes a row per sample, queue depths get a column per topic.
+	 */
+	public void exportCsv(Path file) throws IOException {
+		List<Sample> rows = getSamples();
+		// taken after the rows, so it covers every topic of them.
+		List<String> names = getTopics();
+		if (file.getParent() != null)
+			Files.createDirectories(file.getParent());
+		try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+			writer.write("time_s,throughput_msg_s,active_nodes,p99_queue_wait_ms,p99_service_ms");
+			for (String topic : names)
+				writer.write(",queue_depth_" + topic.replaceAll("[^A-Za-z0-9_-]", "_"));
+			writer.write(System.lineSeparator());
+			for (Sample row : rows) {
+				writer.write(String.format(Locale.ROOT, "%.3f,%.1f,%d,%.3f,%.3f", row.seconds,
+						row.throughput, row.activeNodes, row.queueWaitMillis, row.serviceMillis));
+				for (int i = 0; i < names.size(); i++) {
+					long depth = row.getQueueDepth(i);
+					writer.write(",");
+					if (depth != Sample.NO_DEPTH)
+						writer.write(Long.toString(depth));
+				}
+				writer.write(System.lineSeparator());
+			}
+		}
+	}
+
+	private List<Sample> getSamples() {
+		lock.lock();
+		try {
+			return new ArrayList<>(samples);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private List<String> getTopics() {
+		lock.lock();
+		try {
+			return new ArrayList<>(topics);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private static XYSeries series(String name, List<Sample> rows, ToDoubleFunction<Sample> value) {
+		XYSeries series = new XYSeries(name);
+		rows.forEach(x -> series.add(x.seconds, value.applyAsDouble(x)));
+		return series;
+	}
+}
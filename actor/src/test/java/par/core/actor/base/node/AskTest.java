@@ -0,0 +1,126 @@
+package par.core.actor.base.node;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import par.core.actor.base.ActorMessage;
+import par.core.actor.base.ActorPriority;
+import par.core.actor.base.Topic;
+import par.core.actor.base.node.configs.ActorConfig;
+import par.core.actor.base.node.configs.ClusterConfig;
+import par.core.actor.divisionstrategies.NoDivision;
+import par.core.actor.exceptions.UnrepliedMessageException;
+import par.core.actor.factories.ExecutorFactory.ThreadPoolTypes;
+
+/**
+ * An asked message is replied by {@code operateAsk}, its future fails once the
+ * timeout passes or the message is returned by a termination.
+ *
+ * @author osman.yasal
+ *
+ */
+class AskTest {
+
+	private static final String TOPIC = "asking";
+	private static final int BLOCKING = -1;
+	private static final long TIMEOUT_SECONDS = 10;
+
+	private ActorCluster cluster;
+	private CountDownLatch unblocked;
+	private CountDownLatch blocking;
+
+	private final class DoublingActor extends Actor<Integer> {
+
+		private DoublingActor(ActorConfig<Integer> config) {
+			super(config);
+		}
+
+		@Override
+		public void operate(ActorMessage<Integer> msg) {
+			if (msg.getMessage() == null || msg.getMessage() != BLOCKING)
+				return;
+			blocking.countDown();
+			try {
+				unblocked.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		@Override
+		public Object operateAsk(ActorMessage<Integer> msg) {
+			operate(msg);
+			return msg.getMessage() * 2;
+		}
+
+		@Override
+		public Actor<Integer> generateChildActor() {
+			return null;
+		}
+	}
+
+	@BeforeEach
+	void setup() {
+		cluster = new ActorCluster(new ClusterConfig(ThreadPoolTypes.FIXED_SIZED, false).setThreadCount(1));
+		unblocked = new CountDownLatch(1);
+		blocking = new CountDownLatch(1);
+	}
+
+	@AfterEach
+	void tearDown() {
+		unblocked.countDown();
+		cluster.terminateCluster(true, false);
+		Thread.interrupted();
+	}
+
+	private DoublingActor addRoot() {
+		DoublingActor root = new DoublingActor(new ActorConfig<Integer>(new Topic(TOPIC), cluster.getRouter(),
+				new NoDivision<>(), ActorPriority.DEFAULT, null));
+		cluster.addRootActor(root);
+		return root;
+	}
+
+	@Test
+	void askIsRepliedByOperateAsk() throws Exception {
+		DoublingActor root = addRoot();
+		CompletableFuture<Integer> reply = root.ask(new ActorMessage<>(21));
+
+		assertEquals(42, reply.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void askFailsOnTimeout() throws Exception {
+		DoublingActor root = addRoot();
+		CompletableFuture<Integer> reply = root.ask(new ActorMessage<>(BLOCKING), 50, TimeUnit.MILLISECONDS);
+
+		ExecutionException e = assertThrows(ExecutionException.class,
+				() -> reply.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+		assertTrue(e.getCause() instanceof TimeoutException);
+	}
+
+	@Test
+	void askFailsOnTermination() throws Exception {
+		DoublingActor root = addRoot();
+		root.sendByLocking(new ActorMessage<>(BLOCKING));
+		blocking.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+		// queued behind the blocking message, so the termination returns it.
+		CompletableFuture<Integer> reply = root.ask(new ActorMessage<>(1));
+		cluster.getRouter().terminateTopic(new Topic(TOPIC));
+		Thread.interrupted();
+
+		ExecutionException e = assertThrows(ExecutionException.class,
+				() -> reply.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+		assertTrue(e.getCause() instanceof UnrepliedMessageException);
+	}
+}
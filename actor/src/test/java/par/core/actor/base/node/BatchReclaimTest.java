@@ -0,0 +1,270 @@
+package par.core.actor.base.node;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import par.core.actor.base.ActorMessage;
+import par.core.actor.base.ActorPriority;
+import par.core.actor.base.ControlBlock.Status;
+import par.core.actor.base.Topic;
+import par.core.actor.base.node.configs.ActorConfig;
+import par.core.actor.base.node.configs.ClusterConfig;
+import par.core.actor.divisionstrategies.NoDivision;
+import par.core.actor.factories.ExecutorFactory.ThreadPoolTypes;
+import par.core.actor.factories.MailboxFactory.MailboxTypes;
+
+/**
+ * The drained messages a node couldn't process go back to the head of the
+ * mailbox, or to the terminator if the node is terminated meanwhile.
+ *
+ * @author osman.yasal
+ *
+ */
+class BatchReclaimTest {
+
+	private static final String TOPIC = "batch";
+	private static final int THROUGHPUT = 5;
+	private static final int COUNT = 10;
+	private static final long TIMEOUT_SECONDS = 10;
+
+	private ActorCluster cluster;
+	private List<Integer> processed;
+	private CountDownLatch started;
+	private CountDownLatch release;
+
+	/**
+	 * Interrupts its thread at {@code interruptAt}, blocks at {@code blockAt}
+	 * until it's released.
+	 */
+	private final class RecordingActor extends Actor<Integer> {
+		private final int interruptAt;
+		private final int blockAt;
+
+		private RecordingActor(ActorConfig<Integer> config, int interruptAt, int blockAt) {
+			super(config);
+			this.interruptAt = interruptAt;
+			this.blockAt = blockAt;
+		}
+
+		@Override
+		public void operate(ActorMessage<Integer> msg) {
+			int value = msg.getMessage();
+			if (value == blockAt)
+				awaitRelease();
+			processed.add(value);
+			if (value == interruptAt)
+				Thread.currentThread().interrupt();
+		}
+
+		@Override
+		public Actor<Integer> generateChildActor() {
+			return null;
+		}
+	}
+
+	private final class BlockingIntActor extends IntActor {
+		private BlockingIntActor(ActorConfig<Integer> config) {
+			super(config);
+		}
+
+		@Override
+		public void operate(int value) {
+			if (value == 0)
+				awaitRelease();
+			processed.add(value);
+		}
+
+		@Override
+		public IntActor generateChildActor() {
+			return null;
+		}
+	}
+
+	/**
+	 * Terminates and re-activates itself from another thread right after its
+	 * first run yields, records the max number of its runs at the same time.
+	 */
+	private final class YieldingActor extends Actor<Integer> {
+		private final AtomicInteger running;
+		private final AtomicInteger maxRunning;
+		private final AtomicBoolean isRaced;
+
+		private YieldingActor(ActorConfig<Integer> config) {
+			super(config);
+			this.running = new AtomicInteger();
+			this.maxRunning = new AtomicInteger();
+			this.isRaced = new AtomicBoolean();
+		}
+
+		@Override
+		public Object call() throws Exception {
+			maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+			try {
+				return super.call();
+			} finally {
+				running.decrementAndGet();
+			}
+		}
+
+		@Override
+		boolean processMailbox(int throughput) {
+			boolean isYielded = super.processMailbox(throughput);
+			if (isYielded && isRaced.compareAndSet(false, true)) {
+				Thread racer = new Thread(() -> {
+					terminateActor(false);
+					Thread.interrupted();
+					sendByLocking(new ActorMessage<>(-1));
+				});
+				racer.start();
+				try {
+					racer.join();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			return isYielded;
+		}
+
+		@Override
+		public void operate(ActorMessage<Integer> msg) {
+			try {
+				Thread.sleep(50);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			processed.add(msg.getMessage());
+		}
+
+		@Override
+		public Actor<Integer> generateChildActor() {
+			return null;
+		}
+	}
+
+	@BeforeEach
+	void setup() {
+		cluster = new ActorCluster(new ClusterConfig(ThreadPoolTypes.FIXED_SIZED, false).setThreadCount(2));
+		processed = Collections.synchronizedList(new ArrayList<>());
+		started = new CountDownLatch(1);
+		release = new CountDownLatch(1);
+	}
+
+	@AfterEach
+	void tearDown() {
+		release.countDown();
+		cluster.terminateCluster(true, false);
+		Thread.interrupted();
+	}
+
+	private void awaitRelease() {
+		started.countDown();
+		try {
+			release.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private ActorConfig<Integer> config(MailboxTypes mailboxType) {
+		return new ActorConfig<Integer>(new Topic(TOPIC), cluster.getRouter(), new NoDivision<>(),
+				ActorPriority.DEFAULT, null).setMailboxType(mailboxType).setThroughput(THROUGHPUT);
+	}
+
+	private RecordingActor addRoot(MailboxTypes mailboxType, int interruptAt, int blockAt) {
+		RecordingActor root = new RecordingActor(config(mailboxType), interruptAt, blockAt);
+		cluster.addRootActor(root);
+		for (int i = 0; i < COUNT; i++)
+			root.load(new ActorMessage<>(i));
+		return root;
+	}
+
+	@ParameterizedTest
+	@EnumSource(MailboxTypes.class)
+	void interruptedBatchKeepsOrder(MailboxTypes mailboxType) throws Exception {
+		RecordingActor root = addRoot(mailboxType, 2, -1);
+		root.executeNodeStack();
+		await(() -> processed.size() == 3 && Status.PASSIVE.equals(root.getCb().getStatus()));
+		assertEquals(COUNT - 3, root.getQueueSize());
+
+		root.executeNodeStack();
+		await(() -> processed.size() == COUNT);
+		for (int i = 0; i < COUNT; i++)
+			assertEquals(i, processed.get(i));
+	}
+
+	@ParameterizedTest
+	@EnumSource(MailboxTypes.class)
+	void terminationTakesInFlightBatch(MailboxTypes mailboxType) throws Exception {
+		RecordingActor root = addRoot(mailboxType, -1, 0);
+		root.executeNodeStack();
+		assertTrue(started.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+		List<ActorMessage<Integer>> waiting = root.terminateActor(false);
+		Thread.interrupted();
+		release.countDown();
+		await(() -> processed.size() == 1 && Status.PASSIVE.equals(root.getCb().getStatus()));
+
+		assertEquals(COUNT - 1, waiting.size());
+		for (int i = 0; i < waiting.size(); i++)
+			assertEquals(i + 1, waiting.get(i).getMessage());
+		assertEquals(0, root.getQueueSize());
+	}
+
+	@Test
+	void primitiveTerminationTakesInFlightBatch() throws Exception {
+		BlockingIntActor root = new BlockingIntActor(config(null));
+		cluster.addRootActor(root);
+		for (int i = 0; i < COUNT; i++)
+			root.load(i);
+		root.executeNodeStack();
+		assertTrue(started.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+		int[] waiting = root.terminateValues(false);
+		Thread.interrupted();
+		release.countDown();
+		await(() -> processed.size() == 1 && Status.PASSIVE.equals(root.getCb().getStatus()));
+
+		assertArrayEquals(new int[] { 1, 2, 3, 4, 5, 6, 7, 8, 9 }, waiting);
+		assertEquals(0, root.getQueueSize());
+	}
+
+	/**
+	 * The yielded run reschedules the node that a sender re-activated after its
+	 * termination, the node must still run on a single thread.
+	 */
+	@Test
+	void rescheduleAfterReactivationRunsOnce() throws Exception {
+		YieldingActor root = new YieldingActor(config(MailboxTypes.LINKED).setThroughput(1));
+		cluster.addRootActor(root);
+		for (int i = 0; i < 3; i++)
+			root.load(new ActorMessage<>(i));
+		root.executeNodeStack();
+
+		await(() -> processed.contains(-1));
+		assertTrue(cluster.waitForTermination(TOPIC, TIMEOUT_SECONDS, TimeUnit.SECONDS, false));
+		assertEquals(1, root.maxRunning.get());
+	}
+
+	private static void await(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+		while (!condition.getAsBoolean() && System.nanoTime() < deadline)
+			Thread.sleep(1);
+		assertTrue(condition.getAsBoolean());
+	}
+}
@@ -0,0 +1,93 @@
+package par.core.actor.base.node;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import par.core.actor.base.ActorMessage;
+import par.core.actor.base.ActorPriority;
+import par.core.actor.base.Topic;
+import par.core.actor.base.node.configs.ActorConfig;
+import par.core.actor.base.node.configs.ClusterConfig;
+import par.core.actor.divisionstrategies.NoDivision;
+import par.core.actor.factories.ExecutorFactory.ThreadPoolTypes;
+import par.core.actor.metrics.HistogramSnapshot;
+
+/**
+ * A slow message of a drained batch shows up in the service time histogram
+ * with its own time instead of the mean of the batch.
+ *
+ * @author osman.yasal
+ *
+ */
+class BatchServiceTimeTest {
+
+	private static final int COUNT = 50;
+	private static final long SLOW_MILLIS = 50;
+	private static final long TIMEOUT_SECONDS = 10;
+
+	private ActorCluster cluster;
+	private AtomicInteger processed;
+
+	private final class SlowFirstActor extends Actor<Integer> {
+		private SlowFirstActor(ActorConfig<Integer> config) {
+			super(config);
+		}
+
+		@Override
+		public void operate(ActorMessage<Integer> msg) {
+			if (msg.getMessage() == 0) {
+				try {
+					Thread.sleep(SLOW_MILLIS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			processed.incrementAndGet();
+		}
+
+		@Override
+		public Actor<Integer> generateChildActor() {
+			return null;
+		}
+	}
+
+	@BeforeEach
+	void setup() {
+		cluster = new ActorCluster(new ClusterConfig(ThreadPoolTypes.FIXED_SIZED, false).setThreadCount(1));
+		processed = new AtomicInteger();
+	}
+
+	@AfterEach
+	void tearDown() {
+		cluster.terminateCluster(true, false);
+		Thread.interrupted();
+	}
+
+	@Test
+	void slowMessageKeepsItsServiceTime() throws Exception {
+		ActorConfig<Integer> config = new ActorConfig<Integer>(new Topic("timed"), cluster.getRouter(),
+				new NoDivision<>(), ActorPriority.DEFAULT, null).setThroughput(COUNT);
+		SlowFirstActor root = new SlowFirstActor(config);
+		cluster.addRootActor(root);
+		for (int i = 0; i < COUNT; i++)
+			root.load(new ActorMessage<>(i));
+		root.executeNodeStack();
+
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+		while (processed.get() < COUNT && System.nanoTime() < deadline)
+			Thread.sleep(5);
+		HistogramSnapshot serviceTime = root.getMetricsSnapshot().getServiceTime();
+		assertEquals(COUNT, serviceTime.getCount());
+		assertTrue(serviceTime.getMaxNanos() >= TimeUnit.MILLISECONDS.toNanos(SLOW_MILLIS),
+				"max " + serviceTime.getMaxNanos());
+		assertTrue(serviceTime.getValueAtPercentile(50) < TimeUnit.MILLISECONDS.toNanos(SLOW_MILLIS) / 10,
+				"median " + serviceTime.getValueAtPercentile(50));
+	}
+}
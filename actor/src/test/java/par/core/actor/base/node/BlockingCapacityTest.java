@@ -0,0 +1,108 @@
+package par.core.actor.base.node;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import par.core.actor.base.ActorMessage;
+import par.core.actor.base.ActorPriority;
+import par.core.actor.base.ControlBlock.Status;
+import par.core.actor.base.Topic;
+import par.core.actor.base.node.configs.ActorConfig;
+import par.core.actor.base.node.configs.ClusterConfig;
+import par.core.actor.divisionstrategies.NoDivision;
+import par.core.actor.exceptions.MailboxOverflowException;
+import par.core.actor.factories.ExecutorFactory.ThreadPoolTypes;
+import par.core.actor.mailbox.OverflowPolicy;
+
+/**
+ * A full BLOCK mailbox doesn't start a loaded node and doesn't stall a node
+ * sending to itself.
+ *
+ * @author osman.yasal
+ *
+ */
+class BlockingCapacityTest {
+
+	private static final int CAPACITY = 2;
+	private static final long BLOCK_TIMEOUT_MILLIS = 5000;
+	private static final long TIMEOUT_SECONDS = 10;
+
+	private ActorCluster cluster;
+
+	private static final class SelfSendingActor extends Actor<Integer> {
+		private final CompletableFuture<Long> waited;
+		private final CompletableFuture<Boolean> isSent;
+
+		private SelfSendingActor(ActorConfig<Integer> config) {
+			super(config);
+			this.waited = new CompletableFuture<>();
+			this.isSent = new CompletableFuture<>();
+		}
+
+		@Override
+		public void operate(ActorMessage<Integer> msg) {
+			if (msg.getMessage() != 0)
+				return;
+			for (int i = 1; i <= CAPACITY; i++)
+				trySendByLocking(new ActorMessage<>(i));
+			long start = System.nanoTime();
+			isSent.complete(trySendByLocking(new ActorMessage<>(CAPACITY + 1)));
+			waited.complete(System.nanoTime() - start);
+		}
+
+		@Override
+		public Actor<Integer> generateChildActor() {
+			return null;
+		}
+	}
+
+	@BeforeEach
+	void setup() {
+		cluster = new ActorCluster(new ClusterConfig(ThreadPoolTypes.FIXED_SIZED, false).setThreadCount(1));
+	}
+
+	@AfterEach
+	void tearDown() {
+		cluster.terminateCluster(true, false);
+		Thread.interrupted();
+	}
+
+	private ActorConfig<Integer> config(String topic) {
+		return new ActorConfig<Integer>(new Topic(topic), cluster.getRouter(), new NoDivision<>(),
+				ActorPriority.DEFAULT, null).setCapacity(CAPACITY).setOverflowPolicy(OverflowPolicy.BLOCK)
+				.setBlockTimeoutMillis(BLOCK_TIMEOUT_MILLIS);
+	}
+
+	@Test
+	void loadingFullMailboxDoesntStartNode() {
+		SelfSendingActor root = new SelfSendingActor(config("loaded"));
+		cluster.addRootActor(root);
+		for (int i = 1; i <= CAPACITY; i++)
+			root.load(new ActorMessage<>(i));
+
+		long start = System.nanoTime();
+		assertThrows(MailboxOverflowException.class, () -> root.load(new ActorMessage<>(CAPACITY + 1)));
+		assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(BLOCK_TIMEOUT_MILLIS));
+		assertEquals(Status.PASSIVE, root.getCb().getStatus());
+		assertEquals(CAPACITY, root.getQueueSize());
+	}
+
+	@Test
+	void selfSendToFullMailboxFailsFast() throws Exception {
+		SelfSendingActor root = new SelfSendingActor(config("self"));
+		cluster.addRootActor(root);
+		root.sendByLocking(new ActorMessage<>(0));
+
+		assertFalse(root.isSent.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+		assertTrue(root.waited.get() < TimeUnit.MILLISECONDS.toNanos(BLOCK_TIMEOUT_MILLIS));
+	}
+}
@@ -0,0 +1,160 @@
+package par.core.actor.base.node;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import par.core.actor.base.ActorMessage;
+import par.core.actor.base.ActorPriority;
+import par.core.actor.base.Topic;
+import par.core.actor.base.node.configs.ActorConfig;
+import par.core.actor.base.node.configs.ClusterConfig;
+import par.core.actor.divisionstrategies.NumberBasedDivison;
+import par.core.actor.factories.ExecutorFactory.ThreadPoolTypes;
+
+/**
+ * Children retire while senders keep using them and the topic is terminated
+ * meanwhile, every message is either processed or returned by a termination.
+ *
+ * @author osman.yasal
+ *
+ */
+class IdleRetirementTest {
+
+	private static final String TOPIC = "retiring";
+	private static final int SENDERS = 4;
+	private static final int ROUNDS = 20;
+	private static final int BURST = 500;
+	private static final long TIMEOUT_SECONDS = 20;
+
+	private ActorCluster cluster;
+	private AtomicInteger processed;
+	private List<Actor<Integer>> children;
+
+	private final class CountingActor extends Actor<Integer> {
+		private final ActorConfig<Integer> actorConfig;
+
+		private CountingActor(ActorConfig<Integer> config) {
+			super(config);
+			this.actorConfig = config;
+		}
+
+		@Override
+		public void operate(ActorMessage<Integer> msg) {
+			// the per message loop hands over an empty message if a terminator drained
+			// the mailbox first.
+			if (msg.getMessage() != null)
+				processed.incrementAndGet();
+		}
+
+		@Override
+		public Actor<Integer> generateChildActor() {
+			CountingActor child = new CountingActor(actorConfig);
+			children.add(child);
+			return child;
+		}
+	}
+
+	@BeforeEach
+	void setup() {
+		cluster = new ActorCluster(
+				new ClusterConfig(ThreadPoolTypes.FIXED_SIZED, false).setThreadCount(4).setIdleCheckMillis(1));
+		processed = new AtomicInteger();
+		children = Collections.synchronizedList(new ArrayList<>());
+	}
+
+	@AfterEach
+	void tearDown() {
+		cluster.terminateCluster(true, false);
+		Thread.interrupted();
+	}
+
+	@Test
+	void retirementDoesntLoseMessages() throws Exception {
+		ActorConfig<Integer> config = new ActorConfig<Integer>(new Topic(TOPIC), cluster.getRouter(),
+				new NumberBasedDivison<>(5L), ActorPriority.DEFAULT, null).setIdleRetirementMillis(1);
+		CountingActor root = new CountingActor(config);
+		cluster.addRootActor(root);
+
+		AtomicInteger sent = new AtomicInteger();
+		List<Thread> senders = new ArrayList<>();
+		for (int i = 0; i < SENDERS; i++) {
+			// the odd senders keep the child they saw first, so they hit retired nodes.
+			boolean isStale = i % 2 == 1;
+			Thread sender = new Thread(() -> {
+				for (int round = 0; round < ROUNDS; round++) {
+					Actor<Integer> target = root;
+					for (int j = 0; j < BURST; j++) {
+						if (isStale && target == root && root.getChildActor() != null)
+							target = root.getChildActor();
+						target.sendByLocking(new ActorMessage<>(j));
+						sent.incrementAndGet();
+					}
+					try {
+						Thread.sleep(5);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						return;
+					}
+				}
+			});
+			senders.add(sender);
+			sender.start();
+		}
+
+		int returned = 0;
+		for (int i = 0; i < ROUNDS / 2; i++) {
+			Thread.sleep(10);
+			returned += terminate();
+		}
+		for (Thread sender : senders)
+			sender.join();
+		returned += terminate();
+
+		int total = SENDERS * ROUNDS * BURST;
+		assertEquals(total, sent.get());
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+		while (processed.get() + returned < total && System.nanoTime() < deadline)
+			Thread.sleep(5);
+		assertEquals(total, processed.get() + returned);
+		assertTrue(cluster.waitForTermination(TOPIC, TIMEOUT_SECONDS, TimeUnit.SECONDS, false));
+		assertTrue(children.stream().anyMatch(Actor::isRetired));
+	}
+
+	@Test
+	void retiredNodeForwardsLoadedMessages() throws Exception {
+		ActorConfig<Integer> config = new ActorConfig<Integer>(new Topic(TOPIC), cluster.getRouter(),
+				new NumberBasedDivison<>(5L), ActorPriority.DEFAULT, null).setIdleRetirementMillis(1);
+		CountingActor root = new CountingActor(config);
+		cluster.addRootActor(root);
+		Actor<Integer> child = root.fetchChildActor();
+
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+		while (!child.isRetired() && System.nanoTime() < deadline)
+			Thread.sleep(1);
+		assertTrue(child.isRetired());
+
+		// loading doesn't execute a node, the retired one only runs to forward it.
+		child.load(new ActorMessage<>(1));
+		while (processed.get() == 0 && System.nanoTime() < deadline)
+			Thread.sleep(1);
+		assertEquals(1, processed.get());
+		assertEquals(0, child.getQueueSize());
+	}
+
+	private int terminate() {
+		Map<String, List<?>> waiting = cluster.getRouter().terminateTopic(new Topic(TOPIC));
+		Thread.interrupted();
+		return waiting.get(TOPIC).size();
+	}
+}
@@ -0,0 +1,130 @@
+package par.core.actor.base.node;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import par.core.actor.base.ActorMessage;
+import par.core.actor.base.ActorPriority;
+import par.core.actor.base.Topic;
+import par.core.actor.base.node.configs.ActorConfig;
+import par.core.actor.base.node.configs.ClusterConfig;
+import par.core.actor.divisionstrategies.NoDivision;
+import par.core.actor.factories.ExecutorFactory.ThreadPoolTypes;
+
+/**
+ * Subscriptions survive concurrent leaves and don't outlive their nodes.
+ *
+ * @author osman.yasal
+ *
+ */
+class SubscriptionTest {
+
+	private static final Topic PUBLISHED = new Topic("published");
+	private static final long TIMEOUT_SECONDS = 10;
+
+	private ActorCluster cluster;
+
+	private static final class SilentActor extends Actor<String> {
+		private final ActorConfig<String> actorConfig;
+
+		private SilentActor(ActorConfig<String> config) {
+			super(config);
+			this.actorConfig = config;
+		}
+
+		@Override
+		public void operate(ActorMessage<String> msg) {
+		}
+
+		@Override
+		public Actor<String> generateChildActor() {
+			return new SilentActor(actorConfig);
+		}
+	}
+
+	@BeforeEach
+	void setup() {
+		cluster = new ActorCluster(
+				new ClusterConfig(ThreadPoolTypes.FIXED_SIZED, false).setThreadCount(1).setIdleCheckMillis(10));
+	}
+
+	@AfterEach
+	void tearDown() {
+		cluster.terminateCluster(true, false);
+		Thread.interrupted();
+	}
+
+	private SilentActor addRoot(String topic, long idleRetirementMillis) {
+		ActorConfig<String> config = new ActorConfig<String>(new Topic(topic), cluster.getRouter(), new NoDivision<>(),
+				ActorPriority.DEFAULT, null).setIdleRetirementMillis(idleRetirementMillis);
+		SilentActor root = new SilentActor(config);
+		cluster.addRootActor(root);
+		return root;
+	}
+
+	@Test
+	void subscribeSurvivesConcurrentUnsubscribe() throws Exception {
+		SilentActor leaving = addRoot("leaving", 0);
+		SilentActor joining = addRoot("joining", 0);
+		CyclicBarrier barrier = new CyclicBarrier(2);
+		Thread leaver = new Thread(() -> {
+			try {
+				for (int i = 0; i < 10_000; i++) {
+					barrier.await();
+					leaving.unsubscribe(PUBLISHED);
+					barrier.await();
+				}
+			} catch (Exception e) {
+				throw new IllegalStateException(e);
+			}
+		});
+		leaver.start();
+		for (int i = 0; i < 10_000; i++) {
+			leaving.subscribe(PUBLISHED);
+			barrier.await();
+			joining.subscribe(PUBLISHED);
+			barrier.await();
+			assertTrue(cluster.getRouter().getSubscribers(PUBLISHED).stream().anyMatch(x -> x == joining),
+					"round " + i);
+			joining.unsubscribe(PUBLISHED);
+		}
+		leaver.join();
+	}
+
+	@Test
+	void terminatedNodesAreUnsubscribed() {
+		SilentActor root = addRoot("terminated", 0);
+		root.subscribe(PUBLISHED);
+		root.fetchChildActor().subscribe(PUBLISHED);
+		assertEquals(2, cluster.getRouter().getSubscribers(PUBLISHED).size());
+
+		root.terminateNodeStack();
+		Thread.interrupted();
+		assertEquals(0, cluster.getRouter().getSubscribers(PUBLISHED).size());
+		assertEquals(0, cluster.getRouter().publish(PUBLISHED, "payload"));
+	}
+
+	@Test
+	void retiredNodesAreUnsubscribed() throws Exception {
+		SilentActor root = addRoot("retired", 50);
+		root.subscribe(PUBLISHED);
+		Actor<String> child = root.fetchChildActor();
+		child.subscribe(PUBLISHED);
+
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+		while (cluster.getRouter().getSubscribers(PUBLISHED).size() > 1 && System.nanoTime() < deadline)
+			Thread.sleep(5);
+		assertNull(root.getChildActor());
+		assertEquals(1, cluster.getRouter().getSubscribers(PUBLISHED).size());
+		assertSame(root, cluster.getRouter().getSubscribers(PUBLISHED).get(0));
+	}
+}
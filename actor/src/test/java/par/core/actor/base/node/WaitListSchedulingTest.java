@@ -0,0 +1,242 @@
+package par.core.actor.base.node;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import par.core.actor.base.ActorMessage;
+import par.core.actor.base.ActorPriority;
+import par.core.actor.base.ControlBlock.Status;
+import par.core.actor.base.Topic;
+import par.core.actor.base.node.configs.ActorConfig;
+import par.core.actor.base.node.configs.ClusterConfig;
+import par.core.actor.divisionstrategies.NoDivision;
+import par.core.actor.exceptions.CyclicDependencyException;
+import par.core.actor.factories.ExecutorFactory.ThreadPoolTypes;
+
+/**
+ * A node waiting for its waitList must not hold a pool thread, and the
+ * waitLists must stay a DAG.
+ * 
+ * @author osman.yasal
+ *
+ */
+class WaitListSchedulingTest {
+
+	private static final long TIMEOUT_SECONDS = 10;
+
+	/**
+	 * Appends its topic to the log, c blocks until it's released.
+	 */
+	private static final class LoggingActor extends Actor<Integer> {
+		private final List<String> log;
+		private final CountDownLatch started;
+		private final CountDownLatch release;
+
+		private LoggingActor(ActorConfig<Integer> config, List<String> log, CountDownLatch started,
+				CountDownLatch release) {
+			super(config);
+			this.log = log;
+			this.started = started;
+			this.release = release;
+		}
+
+		@Override
+		public void operate(ActorMessage<Integer> msg) {
+			started.countDown();
+			try {
+				release.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			log.add(getTopic().getName());
+		}
+
+		@Override
+		public Actor<Integer> generateChildActor() {
+			return null;
+		}
+	}
+
+	/**
+	 * Records the max number of its runs at the same time.
+	 */
+	private static final class RunCountingActor extends Actor<Integer> {
+		private final AtomicInteger running;
+		private final AtomicInteger maxRunning;
+
+		private RunCountingActor(ActorConfig<Integer> config) {
+			super(config);
+			this.running = new AtomicInteger();
+			this.maxRunning = new AtomicInteger();
+		}
+
+		@Override
+		public Object call() throws Exception {
+			maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+			try {
+				return super.call();
+			} finally {
+				running.decrementAndGet();
+			}
+		}
+
+		@Override
+		public void operate(ActorMessage<Integer> msg) {
+			try {
+				Thread.sleep(100);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		@Override
+		public Actor<Integer> generateChildActor() {
+			return null;
+		}
+	}
+
+	private static LoggingActor actor(ActorCluster cluster, String topic, List<String> log, CountDownLatch started,
+			CountDownLatch release, String... waitList) {
+		List<Topic> topics = new ArrayList<>();
+		for (String name : waitList)
+			topics.add(new Topic(name));
+		ActorConfig<Integer> config = new ActorConfig<>(new Topic(topic), cluster.getRouter(), new NoDivision<>(),
+				ActorPriority.DEFAULT, topics);
+		return new LoggingActor(config, log, started, release);
+	}
+
+	@Test
+	void waitingNodesDontHoldPoolThreads() throws Exception {
+		ActorCluster cluster = new ActorCluster(new ClusterConfig(ThreadPoolTypes.FIXED_SIZED, false).setThreadCount(1));
+		try {
+			List<String> log = Collections.synchronizedList(new ArrayList<>());
+			CountDownLatch cStarted = new CountDownLatch(1);
+			CountDownLatch release = new CountDownLatch(1);
+			CountDownLatch open = new CountDownLatch(0);
+			LoggingActor c = actor(cluster, "c", log, cStarted, release);
+			LoggingActor b = actor(cluster, "b", log, new CountDownLatch(1), open, "c");
+			LoggingActor a = actor(cluster, "a", log, new CountDownLatch(1), open, "b");
+			cluster.addRootActor(c);
+			cluster.addRootActor(b);
+			cluster.addRootActor(a);
+
+			c.sendByLocking(new ActorMessage<>(1));
+			assertTrue(cStarted.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+			b.sendByLocking(new ActorMessage<>(1));
+			a.sendByLocking(new ActorMessage<>(1));
+
+			// c runs on the only thread, a and b are ACTIVE but neither running nor
+			// queued in the pool.
+			ThreadPoolExecutor pool = (ThreadPoolExecutor) cluster.getPool();
+			assertEquals(1, pool.getActiveCount());
+			assertEquals(0, pool.getQueue().size());
+			assertEquals(Status.ACTIVE, a.getCb().getStatus());
+			assertEquals(Status.ACTIVE, b.getCb().getStatus());
+			assertEquals(3, cluster.getActiveNodeCount());
+
+			release.countDown();
+			assertTrue(cluster.waitForTermination(TIMEOUT_SECONDS, TimeUnit.SECONDS, false));
+			assertEquals(Arrays.asList("c", "b", "a"), log);
+		} finally {
+			cluster.terminateCluster(true, false);
+			Thread.interrupted();
+		}
+	}
+
+	/**
+	 * The idle action of the terminated activation and the one of the new
+	 * activation both fire once the dependency is idle.
+	 */
+	@Test
+	void reactivatedWaitingNodeRunsOnce() throws Exception {
+		ActorCluster cluster = new ActorCluster(new ClusterConfig(ThreadPoolTypes.FIXED_SIZED, false).setThreadCount(2));
+		try {
+			CountDownLatch cStarted = new CountDownLatch(1);
+			CountDownLatch release = new CountDownLatch(1);
+			LoggingActor c = actor(cluster, "c", new ArrayList<>(), cStarted, release);
+			RunCountingActor b = new RunCountingActor(new ActorConfig<>(new Topic("b"), cluster.getRouter(),
+					new NoDivision<>(), ActorPriority.DEFAULT, Arrays.asList(new Topic("c"))));
+			cluster.addRootActor(c);
+			cluster.addRootActor(b);
+
+			c.sendByLocking(new ActorMessage<>(1));
+			assertTrue(cStarted.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+			b.sendByLocking(new ActorMessage<>(1));
+			assertEquals(1, b.terminateActor(false).size());
+			Thread.interrupted();
+			b.sendByLocking(new ActorMessage<>(2));
+
+			release.countDown();
+			assertTrue(cluster.waitForTermination(TIMEOUT_SECONDS, TimeUnit.SECONDS, false));
+			assertEquals(1, b.maxRunning.get());
+		} finally {
+			cluster.terminateCluster(true, false);
+			Thread.interrupted();
+		}
+	}
+
+	@Test
+	void cycleIsRejected() {
+		ActorCluster cluster = new ActorCluster(new ClusterConfig(ThreadPoolTypes.FIXED_SIZED, false).setThreadCount(1));
+		try {
+			CountDownLatch open = new CountDownLatch(0);
+			cluster.addRootActor(actor(cluster, "a", new ArrayList<>(), open, open, "b"));
+			assertThrows(CyclicDependencyException.class,
+					() -> cluster.addRootActor(actor(cluster, "b", new ArrayList<>(), open, open, "a")));
+			assertEquals(null, cluster.getRouter().getRootActor("b"));
+		} finally {
+			cluster.terminateCluster(true, false);
+			Thread.interrupted();
+		}
+	}
+
+	/**
+	 * a→b and b→a added at the same time, one of them must be rejected.
+	 */
+	@Test
+	void concurrentAddsCantFormCycle() throws Exception {
+		for (int round = 0; round < 200; round++) {
+			ActorCluster cluster = new ActorCluster(
+					new ClusterConfig(ThreadPoolTypes.FIXED_SIZED, false).setThreadCount(1));
+			try {
+				CountDownLatch open = new CountDownLatch(0);
+				LoggingActor a = actor(cluster, "a", new ArrayList<>(), open, open, "b");
+				LoggingActor b = actor(cluster, "b", new ArrayList<>(), open, open, "a");
+				CyclicBarrier barrier = new CyclicBarrier(2);
+				AtomicInteger rejected = new AtomicInteger();
+				Thread adder = new Thread(() -> add(cluster, a, barrier, rejected));
+				adder.start();
+				add(cluster, b, barrier, rejected);
+				adder.join();
+				assertEquals(1, rejected.get());
+			} finally {
+				cluster.terminateCluster(true, false);
+				Thread.interrupted();
+			}
+		}
+	}
+
+	private static void add(ActorCluster cluster, Actor<?> node, CyclicBarrier barrier, AtomicInteger rejected) {
+		try {
+			barrier.await();
+			cluster.addRootActor(node);
+		} catch (CyclicDependencyException e) {
+			rejected.incrementAndGet();
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
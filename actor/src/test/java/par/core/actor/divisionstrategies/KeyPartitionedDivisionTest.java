@@ -0,0 +1,212 @@
+package par.core.actor.divisionstrategies;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import par.core.actor.base.ActorMessage;
+import par.core.actor.base.ActorPriority;
+import par.core.actor.base.Topic;
+import par.core.actor.base.node.Actor;
+import par.core.actor.base.node.ActorCluster;
+import par.core.actor.base.node.configs.ActorConfig;
+import par.core.actor.base.node.configs.ClusterConfig;
+import par.core.actor.exceptions.MailboxOverflowException;
+import par.core.actor.factories.ExecutorFactory.ThreadPoolTypes;
+import par.core.actor.mailbox.OverflowPolicy;
+
+/**
+ * The ring grows while messages flow and the messages of a key are still
+ * processed in their sending order.
+ * 
+ * @author osman.yasal
+ *
+ */
+class KeyPartitionedDivisionTest {
+
+	private static final String TOPIC = "keyed";
+	private static final int KEY_COUNT = 50;
+	private static final long TIMEOUT_SECONDS = 30;
+
+	private ActorCluster cluster;
+	private Map<Integer, Integer> lastValues;
+	private AtomicInteger processed;
+	private AtomicInteger violations;
+	private CountDownLatch started;
+	private CountDownLatch release;
+
+	/**
+	 * Checks that the values of every key arrive in increasing order.
+	 */
+	private final class OrderCheckingActor extends Actor<Integer> {
+		private final ActorConfig<Integer> actorConfig;
+
+		private OrderCheckingActor(ActorConfig<Integer> config) {
+			super(config);
+			this.actorConfig = config;
+		}
+
+		@Override
+		public void operate(ActorMessage<Integer> msg) {
+			int value = msg.getMessage();
+			Integer last = lastValues.put(value % KEY_COUNT, value);
+			if (last != null && last > value)
+				violations.incrementAndGet();
+			processed.incrementAndGet();
+		}
+
+		@Override
+		public Actor<Integer> generateChildActor() {
+			return new OrderCheckingActor(actorConfig);
+		}
+	}
+
+	/**
+	 * Blocks on its first message until it's released, so the ring can't release
+	 * the gate of a new partition.
+	 */
+	private final class BlockingActor extends Actor<Integer> {
+		private final ActorConfig<Integer> actorConfig;
+
+		private BlockingActor(ActorConfig<Integer> config) {
+			super(config);
+			this.actorConfig = config;
+		}
+
+		@Override
+		public void operate(ActorMessage<Integer> msg) {
+			started.countDown();
+			try {
+				release.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			processed.incrementAndGet();
+		}
+
+		@Override
+		public Actor<Integer> generateChildActor() {
+			return new BlockingActor(actorConfig);
+		}
+	}
+
+	@BeforeEach
+	void setup() {
+		cluster = new ActorCluster(new ClusterConfig(ThreadPoolTypes.FIXED_SIZED, false).setThreadCount(4));
+		lastValues = new ConcurrentHashMap<>();
+		processed = new AtomicInteger();
+		violations = new AtomicInteger();
+		started = new CountDownLatch(1);
+		release = new CountDownLatch(1);
+	}
+
+	@AfterEach
+	void tearDown() {
+		release.countDown();
+		cluster.terminateCluster(true, false);
+		Thread.interrupted();
+	}
+
+	private OrderCheckingActor addRoot(KeyPartitionedDivision<Integer> division) {
+		ActorConfig<Integer> config = new ActorConfig<>(new Topic(TOPIC), cluster.getRouter(), division,
+				ActorPriority.DEFAULT, null);
+		OrderCheckingActor root = new OrderCheckingActor(config);
+		cluster.addRootActor(root);
+		return root;
+	}
+
+	@Test
+	void growsWhileLoading() throws Exception {
+		OrderCheckingActor root = addRoot(new KeyPartitionedDivision<>(x -> x % KEY_COUNT, 1, 4, 2L));
+		int count = 2000;
+		for (int i = 0; i < count; i++)
+			root.load(new ActorMessage<>(i));
+		assertTrue(cluster.getNodeCount(TOPIC) > 1);
+
+		root.executeNodeStack();
+		awaitProcessed(count);
+		assertEquals(0, violations.get());
+	}
+
+	@Test
+	void growsWhileSending() throws Exception {
+		OrderCheckingActor root = addRoot(new KeyPartitionedDivision<>(x -> x % KEY_COUNT, 1, 4, 2L));
+		int count = 100_000;
+		for (int i = 0; i < count; i++)
+			root.sendByLocking(new ActorMessage<>(i));
+		awaitProcessed(count);
+		assertEquals(0, violations.get());
+		assertEquals(4, cluster.getNodeCount(TOPIC));
+		// the keys really moved to the new nodes.
+		for (Actor<Integer> worker : root.getPoolWorkers())
+			assertTrue(worker.getMetrics().getProcessed() > 0);
+	}
+
+	@Test
+	void terminationReturnsHeldMessages() throws Exception {
+		BlockingActor root = addBlockingRoot(0, null);
+		root.sendByLocking(new ActorMessage<>(0));
+		assertTrue(started.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+		int count = 1000;
+		for (int i = 1; i < count; i++)
+			root.sendByLocking(new ActorMessage<>(i));
+		assertEquals(2, cluster.getNodeCount(TOPIC));
+
+		List<ActorMessage<Integer>> waiting = root.terminateActor(true);
+		Thread.interrupted();
+		release.countDown();
+		Thread.sleep(50);
+		assertEquals(count - 1, waiting.size());
+		assertEquals(1, processed.get());
+		for (Actor<Integer> worker : root.getPoolWorkers())
+			assertEquals(0, worker.getQueueSize());
+	}
+
+	@Test
+	void heldMessagesAreBoundedByCapacity() throws Exception {
+		int capacity = 10;
+		BlockingActor root = addBlockingRoot(capacity, OverflowPolicy.REJECT);
+		root.sendByLocking(new ActorMessage<>(0));
+		assertTrue(started.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+		int rejected = 0;
+		for (int i = 1; i < 1000; i++) {
+			try {
+				root.sendByLocking(new ActorMessage<>(i));
+			} catch (MailboxOverflowException e) {
+				rejected++;
+			}
+		}
+		assertEquals(2, cluster.getNodeCount(TOPIC));
+
+		List<ActorMessage<Integer>> waiting = root.terminateActor(true);
+		Thread.interrupted();
+		assertTrue(waiting.size() <= 2 * capacity, "waiting " + waiting.size());
+		assertEquals(999, waiting.size() + rejected);
+	}
+
+	private BlockingActor addBlockingRoot(int capacity, OverflowPolicy policy) {
+		ActorConfig<Integer> config = new ActorConfig<Integer>(new Topic(TOPIC), cluster.getRouter(),
+				new KeyPartitionedDivision<>(x -> x % KEY_COUNT, 1, 2, 2L), ActorPriority.DEFAULT, null)
+				.setCapacity(capacity).setOverflowPolicy(policy);
+		BlockingActor root = new BlockingActor(config);
+		cluster.addRootActor(root);
+		return root;
+	}
+
+	private void awaitProcessed(int count) throws Exception {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+		while (processed.get() < count && System.nanoTime() < deadline)
+			cluster.waitForTermination(TOPIC, 10, TimeUnit.MILLISECONDS, false);
+		assertEquals(count, processed.get());
+	}
+}
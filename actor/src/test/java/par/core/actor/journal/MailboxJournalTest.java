@@ -0,0 +1,95 @@
+package par.core.actor.journal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import par.core.actor.base.ActorMessage;
+import par.core.actor.serializers.GsonMessageCodec;
+
+/**
+ * Recovery replays the unacknowledged messages, a torn or malformed tail ends
+ * the log and doesn't hide the records appended after the recovery.
+ *
+ * @author osman.yasal
+ *
+ */
+class MailboxJournalTest {
+
+	private static final byte ENQUEUE = 1;
+
+	@TempDir
+	Path directory;
+
+	private MailboxJournal<Integer> open() {
+		return new MailboxJournal<>(directory, new GsonMessageCodec<>(Integer.class), JournalSyncMode.PER_MESSAGE);
+	}
+
+	private static List<Integer> payloads(List<ActorMessage<Integer>> messageList) {
+		return messageList.stream().map(ActorMessage::getMessage).collect(Collectors.toList());
+	}
+
+	private Path logFile(long firstSequence) {
+		return directory.resolve(String.format("%020d.log", firstSequence));
+	}
+
+	@Test
+	void recoversUnacknowledgedMessages() {
+		MailboxJournal<Integer> journal = open();
+		assertEquals(List.of(), journal.recover());
+		ActorMessage<Integer> first = new ActorMessage<>(1);
+		journal.append(first);
+		journal.append(new ActorMessage<>(2));
+		journal.append(new ActorMessage<>(3));
+		journal.acknowledge(first);
+		journal.close();
+
+		assertEquals(List.of(2, 3), payloads(open().recover()));
+	}
+
+	@Test
+	void tornLengthEndsTheLog() throws IOException {
+		MailboxJournal<Integer> journal = open();
+		journal.recover();
+		journal.append(new ActorMessage<>(1));
+		journal.append(new ActorMessage<>(2));
+		// a crash while rolling over, the new file only has a torn header.
+		ByteBuffer torn = ByteBuffer.allocate(Byte.BYTES + Long.BYTES + Integer.BYTES);
+		torn.put(ENQUEUE).putLong(2).putInt(Integer.MAX_VALUE).flip();
+		Files.write(logFile(2), torn.array());
+
+		MailboxJournal<Integer> recovered = open();
+		assertEquals(List.of(1, 2), payloads(recovered.recover()));
+		// appended to the file of the torn header.
+		recovered.append(new ActorMessage<>(3));
+
+		assertEquals(List.of(1, 2, 3), payloads(open().recover()));
+	}
+
+	@Test
+	void corruptedPayloadEndsTheLog() throws IOException {
+		MailboxJournal<Integer> journal = open();
+		journal.recover();
+		journal.append(new ActorMessage<>(1));
+		journal.append(new ActorMessage<>(2));
+		byte[] bytes = Files.readAllBytes(logFile(0));
+		// inside the payload of the last record, before its checksum.
+		bytes[bytes.length - Integer.BYTES - 2] ^= 0x7f;
+		Files.write(logFile(0), bytes, StandardOpenOption.TRUNCATE_EXISTING);
+
+		MailboxJournal<Integer> recovered = open();
+		assertEquals(List.of(1), payloads(recovered.recover()));
+		recovered.append(new ActorMessage<>(3));
+
+		assertEquals(List.of(1, 3), payloads(open().recover()));
+	}
+}